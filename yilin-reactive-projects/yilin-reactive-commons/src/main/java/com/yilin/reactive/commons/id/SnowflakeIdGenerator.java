@@ -0,0 +1,164 @@
+package com.yilin.reactive.commons.id;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: Snowflake 风格的 64 位 ID 生成器, 由 41 位毫秒时间戳(自 {@link #EPOCH} 起)、10 位工作节点 ID 与 12 位序列号组成.
+ * 时间戳与序列号打包为一个 long, 以 CAS 更新, 不加锁. 同一毫秒内序列号用尽时借用下一毫秒;
+ * 时钟回拨时继续使用上次的时间戳递增, 保证单调递增. 时钟比观察到的最大时钟回拨超过 {@code maxClockBackward} 时抛出异常,
+ * 批量预留借用的时间不计入回拨.
+ * <p>借用的时间最多领先时钟 {@code maxClockBackward}, 超出时等待时钟追上. 上次分配的位置只保存在内存中,
+ * 限制领先时间可以保证以相同工作节点 ID 重启(耗时超过 {@code maxClockBackward})后不会生成重复的 ID.
+ * 等待的时间比所需时间多出 {@code maxClockBackward} 后时钟仍未追上时抛出异常.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/8 9:30
+ * @since 2024.0.1
+ */
+public class SnowflakeIdGenerator {
+
+	/**
+	 * 时间戳起点, 2024-01-01T00:00:00Z.
+	 */
+	public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+	/**
+	 * 工作节点 ID 的最大值.
+	 */
+	public static final long MAX_WORKER_ID = (1L << 10) - 1;
+
+	/**
+	 * 一次预留的最大数量, 即一秒的序列号空间, 同时不能超过 {@code maxClockBackward} 内的序列号空间.
+	 */
+	public static final int MAX_BATCH_SIZE = 4096 * 1000;
+
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+	private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + 10;
+
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	/**
+	 * 上次分配的位置, 即 {@code (timestamp << 12) | sequence}, 递增 1 即为下一个序列号或下一毫秒的第一个序列号.
+	 */
+	private final AtomicLong last = new AtomicLong(-1);
+
+	/**
+	 * 观察到的最大时钟(相对 {@link #EPOCH}), 用于判断时钟回拨. 不使用 {@link #last} 中的时间戳, 避免借用的时间被误判为回拨.
+	 */
+	private final AtomicLong latestClock = new AtomicLong(Long.MIN_VALUE);
+
+	private final long workerId;
+
+	private final long maxClockBackward;
+
+	private final LongSupplier clock;
+
+	/**
+	 * 创建生成器, 允许 5 秒内的时钟回拨.
+	 * @param workerId 工作节点 ID, 0 到 {@link #MAX_WORKER_ID}, 同一时间运行的节点必须不同
+	 */
+	public SnowflakeIdGenerator(long workerId) {
+		this(workerId, Duration.ofSeconds(5), System::currentTimeMillis);
+	}
+
+	/**
+	 * 创建生成器.
+	 * @param workerId 工作节点 ID, 0 到 {@link #MAX_WORKER_ID}, 同一时间运行的节点必须不同
+	 * @param maxClockBackward 允许的最大时钟回拨
+	 * @param clock 毫秒时钟
+	 */
+	public SnowflakeIdGenerator(long workerId, Duration maxClockBackward, LongSupplier clock) {
+		if (workerId < 0 || workerId > MAX_WORKER_ID) {
+			throw new IllegalArgumentException("WorkerId must be between 0 and " + MAX_WORKER_ID + " but was " + workerId);
+		}
+		this.workerId = workerId;
+		this.maxClockBackward = maxClockBackward.toMillis();
+		this.clock = clock;
+	}
+
+	/**
+	 * 生成一个 ID.
+	 * @return /
+	 */
+	public long nextId() {
+		return toId(reserve(1));
+	}
+
+	/**
+	 * 一次预留连续的 count 个 ID, 只执行一次 CAS. 借用的时间超过 {@code maxClockBackward} 时等待时钟追上.
+	 * @param count 数量, 不超过 {@link #MAX_BATCH_SIZE} 与 {@code maxClockBackward} 内的序列号空间
+	 * @return 递增的 ID
+	 */
+	public long[] nextIds(int count) {
+		long maxCount = Math.min(MAX_BATCH_SIZE, (this.maxClockBackward + 1) << SEQUENCE_BITS);
+		if (count <= 0 || count > maxCount) {
+			throw new IllegalArgumentException("Count must be between 1 and " + maxCount + " but was " + count);
+		}
+		long start = reserve(count);
+		long[] ids = new long[count];
+		for (int i = 0; i < count; i++) {
+			ids[i] = toId(start + i);
+		}
+		return ids;
+	}
+
+	public long getWorkerId() {
+		return workerId;
+	}
+
+	/**
+	 * 从 ID 中解析生成时间.
+	 * @param id id
+	 * @return /
+	 */
+	public static Instant getTimestamp(long id) {
+		return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH);
+	}
+
+	/**
+	 * 预留 count 个位置, 返回第一个位置. 最后一个位置的时间戳领先时钟超过 {@code maxClockBackward} 时等待.
+	 */
+	private long reserve(int count) {
+		long deadline = 0;
+		while (true) {
+			long current = this.last.get();
+			long now = this.clock.getAsLong() - EPOCH;
+			long latest = this.latestClock.accumulateAndGet(now, Math::max);
+			if (latest - now > this.maxClockBackward) {
+				throw new IllegalStateException(String.format(
+						"Clock moved backwards by %d ms, refusing to generate id for worker %d", latest - now, this.workerId));
+			}
+			long start = Math.max(current + 1, now << SEQUENCE_BITS);
+			long lead = ((start + count - 1) >>> SEQUENCE_BITS) - now;
+			if (lead > this.maxClockBackward) {
+				if (deadline == 0) {
+					deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lead);
+				}
+				else if (System.nanoTime() - deadline > 0) {
+					throw new IllegalStateException(String.format(
+							"Ids are %d ms ahead of the clock, refusing to generate id for worker %d", lead, this.workerId));
+				}
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(lead - this.maxClockBackward));
+				continue;
+			}
+			if (this.last.compareAndSet(current, start + count - 1)) {
+				return start;
+			}
+		}
+	}
+
+	private long toId(long position) {
+		long timestamp = position >>> SEQUENCE_BITS;
+		return (timestamp << TIMESTAMP_SHIFT) | (this.workerId << WORKER_ID_SHIFT) | (position & SEQUENCE_MASK);
+	}
+}
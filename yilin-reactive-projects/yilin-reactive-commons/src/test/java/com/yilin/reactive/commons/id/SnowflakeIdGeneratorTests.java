@@ -0,0 +1,107 @@
+package com.yilin.reactive.commons.id;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/8 10:10
+ * @since 2024.0.1
+ */
+class SnowflakeIdGeneratorTests {
+
+	private final AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1000);
+
+	private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, Duration.ofMillis(100), this.clock::get);
+
+	@Test
+	void shouldGenerateIncreasingIdsAcrossSequenceOverflow() {
+		long previous = this.generator.nextId();
+		for (int i = 0; i < 10_000; i++) {
+			long id = this.generator.nextId();
+			assertThat(id).isGreaterThan(previous);
+			previous = id;
+		}
+		assertThat((previous >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID).isEqualTo(7);
+	}
+
+	@Test
+	void shouldReserveConsecutiveIds() {
+		long[] ids = this.generator.nextIds(5);
+		assertThat(ids).hasSize(5).isSorted();
+		assertThat(this.generator.nextId()).isGreaterThan(ids[4]);
+		assertThat(SnowflakeIdGenerator.getTimestamp(ids[0]).toEpochMilli()).isEqualTo(this.clock.get());
+	}
+
+	@Test
+	void shouldTolerateSmallClockRegression() {
+		long id = this.generator.nextId();
+		this.clock.addAndGet(-50);
+		assertThat(this.generator.nextId()).isGreaterThan(id);
+		this.clock.addAndGet(-100);
+		assertThatIllegalStateException().isThrownBy(this.generator::nextId);
+	}
+
+	@Test
+	void shouldNotTreatBorrowedTimeAsClockRegression() {
+		long[] ids = this.generator.nextIds(4096 * 100);
+		assertThat(SnowflakeIdGenerator.getTimestamp(ids[ids.length - 1]).toEpochMilli() - this.clock.get()).isEqualTo(99);
+		assertThat(this.generator.nextId()).isGreaterThan(ids[ids.length - 1]);
+	}
+
+	@Test
+	void shouldRefuseToLeadClockByMoreThanMaxClockBackward() {
+		long[] ids = this.generator.nextIds(4096 * 100);
+		assertThatIllegalStateException().isThrownBy(() -> this.generator.nextIds(4096 * 10))
+				.withMessageContaining("ahead of the clock");
+
+		this.clock.addAndGet(20);
+		long id = this.generator.nextIds(4096 * 10)[0];
+		assertThat(id).isGreaterThan(ids[ids.length - 1]);
+		assertThat(SnowflakeIdGenerator.getTimestamp(id).toEpochMilli() - this.clock.get()).isLessThanOrEqualTo(100);
+	}
+
+	@Test
+	void shouldWaitForClockToCatchUp() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, Duration.ofMillis(10), System::currentTimeMillis);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 5; i++) {
+			long[] ids = generator.nextIds(4096 * 10);
+			long lead = SnowflakeIdGenerator.getTimestamp(ids[ids.length - 1]).toEpochMilli() - System.currentTimeMillis();
+			assertThat(lead).isLessThanOrEqualTo(10);
+		}
+		assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(30);
+	}
+
+	@Test
+	void shouldRejectTooLargeBatch() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.generator.nextIds(SnowflakeIdGenerator.MAX_BATCH_SIZE + 1));
+		assertThatIllegalArgumentException().isThrownBy(() -> this.generator.nextIds(4096 * 101 + 1));
+	}
+
+	@Test
+	void shouldGenerateUniqueIdsConcurrently() {
+		SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		IntStream.range(0, 100_000).parallel().forEach(i -> ids.add(generator.nextId()));
+		assertThat(ids).hasSize(100_000);
+	}
+
+	@Test
+	void shouldRejectInvalidWorkerId() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+	}
+}
@@ -0,0 +1,45 @@
+package com.yilin.reactive.persistent.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description: 实体二级缓存. 标注在实体类上时仓库的 {@code findById} 结果缓存在进程内,
+ * 仓库的保存、删除、逻辑删除会清除对应条目, 存在事务时在事务结束后再清除一次. 适用于读多写少的字典、部门等数据.
+ * <p>缓存与返回的是实体的浅拷贝, 修改返回的实体不会影响缓存. 不经过仓库的修改(如其他服务实例或直接执行的 SQL)
+ * 不会清除缓存, 条目最多在 {@link #ttl()} 内读取到旧数据. 未命中时的查询在主库执行, 不会从延迟的从库读取旧数据.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+public @interface EntityCacheable {
+
+	/**
+	 * 最大缓存条目数, 超出时淘汰最久未访问的条目.
+	 * @return /
+	 */
+	int maximumSize() default 1000;
+
+	/**
+	 * 条目写入后的有效期, 必须大于 0. 其他服务实例的写入不会清除本实例的缓存, 有效期是读取到旧数据的最长时间.
+	 * @return /
+	 */
+	long ttl() default 60;
+
+	/**
+	 * {@link #ttl()} 的单位.
+	 * @return /
+	 */
+	TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
@@ -0,0 +1,30 @@
+package com.yilin.reactive.persistent.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description: 树形结构的父节点字段, 如 {@code parent_id}, {@code parent_code}. 用于仓库的 {@code findDescendants} 与
+ * {@code findAncestors}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/7 9:30
+ * @since 2024.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Inherited
+public @interface ParentId {
+
+	/**
+	 * 父节点字段引用的属性名, 如 {@code parent_code} 引用 {@code code}, 默认为主键.
+	 * @return /
+	 */
+	String references() default "";
+}
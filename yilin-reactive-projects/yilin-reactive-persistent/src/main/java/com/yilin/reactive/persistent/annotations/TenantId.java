@@ -9,7 +9,7 @@ import java.lang.annotation.Target;
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
- * <p> Description:
+ * <p> Description: 租户字段. 标注在实体字段上时仓库的查询与写入自动带上租户条件, 标注在仓库派生查询方法上时查询条件追加租户条件.
  *
  * @author jcohy
  * @version 2024.0.1 2023/12/18 17:05
@@ -17,7 +17,7 @@ import java.lang.annotation.Target;
  */
 @Documented
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.FIELD)
+@Target({ ElementType.FIELD, ElementType.METHOD })
 @Inherited
 public @interface TenantId {
 }
@@ -0,0 +1,76 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 实体二级缓存 SPI, 以主键为键缓存单个实体类型的实例. 实现需要线程安全,
+ * 通过 {@link EntityCacheFactory} 接入其他缓存实现.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ * @see LruEntityCache
+ */
+public interface EntityCache {
+
+	/**
+	 * 获取缓存的实体, 不存在或已过期时返回 {@literal null}.
+	 * @param id 主键
+	 * @return /
+	 */
+	@Nullable
+	Object get(Object id);
+
+	/**
+	 * 缓存实体.
+	 * @param id 主键
+	 * @param entity 实体
+	 */
+	void put(Object id, Object entity);
+
+	/**
+	 * 条目的代数, 每次 {@link #evict(Object)} 或 {@link #clear()} 后变化. 查询前读取代数,
+	 * 查询后以 {@link #put(Object, Object, long)} 写入, 查询期间条目被清除时不会写入旧数据.
+	 * 默认实现不区分代数.
+	 * @param id 主键
+	 * @return /
+	 */
+	default long getGeneration(Object id) {
+		return 0L;
+	}
+
+	/**
+	 * 代数与 {@code generation} 一致时缓存实体, 否则忽略.
+	 * @param id 主键
+	 * @param entity 实体
+	 * @param generation 查询前通过 {@link #getGeneration(Object)} 读取的代数
+	 */
+	default void put(Object id, Object entity, long generation) {
+		put(id, entity);
+	}
+
+	/**
+	 * 清除条目.
+	 * @param id 主键
+	 */
+	void evict(Object id);
+
+	/**
+	 * 清除所有条目.
+	 */
+	void clear();
+
+	int size();
+
+	long getHitCount();
+
+	long getMissCount();
+
+	/**
+	 * 因容量或过期被淘汰的条目数, 不包括 {@link #evict(Object)} 与 {@link #clear()}.
+	 * @return /
+	 */
+	long getEvictionCount();
+}
@@ -0,0 +1,32 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import java.time.Duration;
+
+import com.yilin.reactive.persistent.annotations.EntityCacheable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 为标注了 {@link EntityCacheable} 的实体创建 {@link EntityCache}. 声明为 bean 时替换默认的 {@link LruEntityCache}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ */
+@FunctionalInterface
+public interface EntityCacheFactory {
+
+	/**
+	 * 默认实现, 创建 {@link LruEntityCache}.
+	 */
+	EntityCacheFactory LRU = (type, cacheable) -> new LruEntityCache(cacheable.maximumSize(),
+			Duration.of(cacheable.ttl(), cacheable.timeUnit().toChronoUnit()));
+
+	/**
+	 * 创建缓存.
+	 * @param type 实体类型
+	 * @param cacheable 实体上的注解
+	 * @return /
+	 */
+	EntityCache create(Class<?> type, EntityCacheable cacheable);
+}
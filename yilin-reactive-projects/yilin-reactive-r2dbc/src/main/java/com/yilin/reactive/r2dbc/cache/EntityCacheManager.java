@@ -0,0 +1,86 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.persistent.annotations.EntityCacheable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 按实体类型管理 {@link EntityCache}. 仓库创建时获取实体对应的缓存, 未标注 {@link EntityCacheable} 的实体没有缓存.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ */
+public class EntityCacheManager {
+
+	private static final EntityCache NONE = new LruEntityCache(1, Duration.ZERO);
+
+	private final Map<Class<?>, EntityCache> caches = new ConcurrentHashMap<>();
+
+	private final List<BiConsumer<Class<?>, EntityCache>> listeners = new CopyOnWriteArrayList<>();
+
+	private final EntityCacheFactory factory;
+
+	public EntityCacheManager() {
+		this(EntityCacheFactory.LRU);
+	}
+
+	public EntityCacheManager(EntityCacheFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * 获取实体类型的缓存, 不存在时创建. 实体未标注 {@link EntityCacheable} 时返回 {@literal null},
+	 * {@link EntityCacheable#ttl()} 不大于 0 时抛出 {@link IllegalStateException}.
+	 * @param type 实体类型
+	 * @return /
+	 */
+	@Nullable
+	public EntityCache getCache(Class<?> type) {
+		EntityCache cache = this.caches.computeIfAbsent(type, this::createCache);
+		return (cache != NONE) ? cache : null;
+	}
+
+	private EntityCache createCache(Class<?> type) {
+		EntityCacheable cacheable = AnnotatedElementUtils.findMergedAnnotation(type, EntityCacheable.class);
+		if (cacheable == null) {
+			return NONE;
+		}
+		Assert.state(cacheable.ttl() > 0, () -> "@EntityCacheable on " + type.getName()
+				+ " must declare a ttl greater than 0, writes from other instances never evict the cache");
+		EntityCache cache = this.factory.create(type, cacheable);
+		this.listeners.forEach(listener -> listener.accept(type, cache));
+		return cache;
+	}
+
+	/**
+	 * 获取已创建的缓存.
+	 * @return /
+	 */
+	public Map<Class<?>, EntityCache> getCaches() {
+		Map<Class<?>, EntityCache> result = new ConcurrentHashMap<>(this.caches);
+		result.values().removeIf(cache -> cache == NONE);
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * 注册缓存创建的回调, 已创建的缓存立即回调, 如注册监控指标.
+	 * @param listener listener
+	 */
+	public void onCacheCreated(BiConsumer<Class<?>, EntityCache> listener) {
+		this.listeners.add(listener);
+		getCaches().forEach(listener);
+	}
+}
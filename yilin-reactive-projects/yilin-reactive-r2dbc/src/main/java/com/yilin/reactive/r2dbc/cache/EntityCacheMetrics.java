@@ -0,0 +1,52 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 导出实体缓存指标, 以 {@code entity} 标签区分实体类型:
+ * {@code yilin.r2dbc.entity.cache.gets} (result=hit/miss), {@code yilin.r2dbc.entity.cache.evictions},
+ * {@code yilin.r2dbc.entity.cache.size}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ */
+public class EntityCacheMetrics implements MeterBinder {
+
+	private static final String PREFIX = "yilin.r2dbc.entity.cache";
+
+	private final EntityCacheManager cacheManager;
+
+	public EntityCacheMetrics(EntityCacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.cacheManager.onCacheCreated((type, cache) -> {
+			Tags tags = Tags.of("entity", type.getSimpleName());
+			FunctionCounter.builder(PREFIX + ".gets", cache, EntityCache::getHitCount)
+					.tags(tags).tag("result", "hit")
+					.description("The number of times cache lookup methods have returned a cached value.")
+					.register(registry);
+			FunctionCounter.builder(PREFIX + ".gets", cache, EntityCache::getMissCount)
+					.tags(tags).tag("result", "miss")
+					.description("The number of times cache lookup methods have returned an uncached value.")
+					.register(registry);
+			FunctionCounter.builder(PREFIX + ".evictions", cache, EntityCache::getEvictionCount)
+					.tags(tags)
+					.description("The number of entries evicted because of size or expiration.")
+					.register(registry);
+			Gauge.builder(PREFIX + ".size", cache, EntityCache::size)
+					.tags(tags)
+					.description("The number of entries in this cache.")
+					.register(registry);
+		});
+	}
+}
@@ -0,0 +1,53 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 实体缓存工具.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 14:20
+ * @since 2024.0.1
+ */
+public final class EntityCacheUtils {
+
+	private EntityCacheUtils() {
+	}
+
+	/**
+	 * 写入后清除缓存. 写入结束时立即清除, 存在响应式事务时在事务提交或回滚后再清除一次,
+	 * 避免事务期间其他请求读取到提交前的旧数据并写入缓存.
+	 * @param write 写入操作
+	 * @param eviction 清除缓存的操作
+	 * @param <T> 结果类型
+	 * @return /
+	 */
+	public static <T> Mono<T> evictAfterWrite(Mono<T> write, Runnable eviction) {
+		return afterCompletion(eviction).then(write).doFinally(signal -> eviction.run());
+	}
+
+	/**
+	 * 存在响应式事务时注册事务结束后的回调, 否则不做任何操作.
+	 * @param eviction 清除缓存的操作
+	 * @return /
+	 */
+	public static Mono<Void> afterCompletion(Runnable eviction) {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.filter(TransactionSynchronizationManager::isSynchronizationActive)
+				.doOnNext(manager -> manager.registerSynchronization(new TransactionSynchronization() {
+
+					@Override
+					public Mono<Void> afterCompletion(int status) {
+						return Mono.fromRunnable(eviction);
+					}
+				}))
+				.onErrorResume(NoTransactionException.class, ex -> Mono.empty())
+				.then();
+	}
+}
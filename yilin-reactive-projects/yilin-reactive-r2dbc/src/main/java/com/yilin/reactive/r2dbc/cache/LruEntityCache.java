@@ -0,0 +1,155 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 基于访问顺序 {@link LinkedHashMap} 的有界 LRU 缓存, 超出容量时淘汰最久未访问的条目,
+ * 设置有效期时条目在写入后过期. 代数按主键的哈希分段记录, 内存占用固定, 不同主键落在同一段时会多丢弃一些写入.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 9:30
+ * @since 2024.0.1
+ */
+public class LruEntityCache implements EntityCache {
+
+	private static final int GENERATION_SEGMENTS = 64;
+
+	private final Map<Object, Entry> entries;
+
+	private final long[] generations = new long[GENERATION_SEGMENTS];
+
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * 创建缓存.
+	 * @param maximumSize 最大条目数
+	 * @param ttl 写入后的有效期, {@link Duration#ZERO} 表示不过期
+	 */
+	public LruEntityCache(int maximumSize, Duration ttl) {
+		Assert.isTrue(maximumSize > 0, "MaximumSize must be greater than 0");
+		Assert.isTrue(!ttl.isNegative(), "Ttl must not be negative");
+		this.ttlNanos = ttl.toNanos();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+				if (size() > maximumSize) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	@Nullable
+	public Object get(Object id) {
+		Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(id);
+			if (entry != null && this.ttlNanos > 0 && entry.isExpired(System.nanoTime())) {
+				this.entries.remove(id);
+				this.evictions.increment();
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			this.misses.increment();
+			return null;
+		}
+		this.hits.increment();
+		return entry.value();
+	}
+
+	@Override
+	public void put(Object id, Object entity) {
+		long expiresAt = System.nanoTime() + this.ttlNanos;
+		synchronized (this.entries) {
+			this.entries.put(id, new Entry(entity, expiresAt));
+		}
+	}
+
+	@Override
+	public long getGeneration(Object id) {
+		synchronized (this.entries) {
+			return this.generations[segment(id)];
+		}
+	}
+
+	@Override
+	public void put(Object id, Object entity, long generation) {
+		long expiresAt = System.nanoTime() + this.ttlNanos;
+		synchronized (this.entries) {
+			if (this.generations[segment(id)] == generation) {
+				this.entries.put(id, new Entry(entity, expiresAt));
+			}
+		}
+	}
+
+	@Override
+	public void evict(Object id) {
+		synchronized (this.entries) {
+			this.entries.remove(id);
+			this.generations[segment(id)]++;
+		}
+	}
+
+	@Override
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+			for (int i = 0; i < GENERATION_SEGMENTS; i++) {
+				this.generations[i]++;
+			}
+		}
+	}
+
+	private static int segment(Object id) {
+		int hash = id.hashCode();
+		return (hash ^ (hash >>> 16)) & (GENERATION_SEGMENTS - 1);
+	}
+
+	@Override
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	@Override
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+
+	private record Entry(Object value, long expiresAt) {
+
+		boolean isExpired(long now) {
+			return now - this.expiresAt >= 0;
+		}
+	}
+}
@@ -1,8 +1,32 @@
 package com.yilin.reactive.r2dbc.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.util.Assert;
 
+import com.yilin.reactive.commons.id.SnowflakeIdGenerator;
+import com.yilin.reactive.r2dbc.cache.EntityCacheFactory;
+import com.yilin.reactive.r2dbc.cache.EntityCacheManager;
+import com.yilin.reactive.r2dbc.cache.EntityCacheMetrics;
+import com.yilin.reactive.r2dbc.connection.QueryRecordingBeanPostProcessor;
+import com.yilin.reactive.r2dbc.connection.ReadWriteRoutingBeanPostProcessor;
+import com.yilin.reactive.r2dbc.core.ChunkRecorder;
+import com.yilin.reactive.r2dbc.core.IdGeneratingCallback;
+import com.yilin.reactive.r2dbc.core.NamedSqlRegistry;
+import com.yilin.reactive.r2dbc.repository.support.MicrometerChunkRecorder;
+import com.yilin.reactive.r2dbc.repository.support.RepositoryMetricsPostProcessor;
 import com.yilin.reactive.r2dbc.repository.support.YiLinR2dbcRepositoryFactoryBean;
 
 /**
@@ -17,7 +41,83 @@ import com.yilin.reactive.r2dbc.repository.support.YiLinR2dbcRepositoryFactoryBe
 @AutoConfiguration
 @EnableR2dbcRepositories(considerNestedRepositories = true, basePackages = { "com.yilin" },
 		repositoryFactoryBeanClass = YiLinR2dbcRepositoryFactoryBean.class)
+@EnableConfigurationProperties(YiLinR2dbcProperties.class)
 public class ReactiveR2dbcConfiguration {
 
+	@Bean
+	@ConditionalOnProperty(prefix = "yilin.r2dbc.routing", name = "enabled", havingValue = "true")
+	static ReadWriteRoutingBeanPostProcessor readWriteRoutingBeanPostProcessor(
+			ObjectProvider<YiLinR2dbcProperties> properties) {
+		return new ReadWriteRoutingBeanPostProcessor(properties);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public EntityCacheManager entityCacheManager(ObjectProvider<EntityCacheFactory> cacheFactory) {
+		return new EntityCacheManager(cacheFactory.getIfAvailable(() -> EntityCacheFactory.LRU));
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public NamedSqlRegistry namedSqlRegistry(ConnectionFactory connectionFactory, YiLinR2dbcProperties properties) {
+		return NamedSqlRegistry.load(properties.getNamedSql().getLocation(),
+				DialectResolver.getDialect(connectionFactory).getBindMarkersFactory());
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnProperty(prefix = "yilin.r2dbc.id-generator", name = "enabled", havingValue = "true")
+	static class IdGeneratorConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		SnowflakeIdGenerator snowflakeIdGenerator(YiLinR2dbcProperties properties) {
+			YiLinR2dbcProperties.IdGenerator idGenerator = properties.getIdGenerator();
+			Assert.state(idGenerator.getWorkerId() != null, "yilin.r2dbc.id-generator.worker-id must be configured "
+					+ "when yilin.r2dbc.id-generator.enabled=true, every running instance needs a distinct value");
+			return new SnowflakeIdGenerator(idGenerator.getWorkerId(), idGenerator.getMaxClockBackward(),
+					System::currentTimeMillis);
+		}
+
+		@Bean
+		IdGeneratingCallback idGeneratingCallback(SnowflakeIdGenerator generator, R2dbcMappingContext mappingContext) {
+			return new IdGeneratingCallback(generator, mappingContext);
+		}
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "yilin.r2dbc.metrics", name = "slow-query-threshold")
+	static QueryRecordingBeanPostProcessor queryRecordingBeanPostProcessor() {
+		return new QueryRecordingBeanPostProcessor();
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterRegistry.class)
+	@ConditionalOnProperty(prefix = "yilin.r2dbc.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+	static class RepositoryMetricsConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry,
+				YiLinR2dbcProperties properties) {
+			return new RepositoryMetricsPostProcessor(registry, properties.getMetrics());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		ChunkRecorder chunkRecorder(ObjectProvider<MeterRegistry> registry) {
+			MeterRegistry meterRegistry = registry.getIfAvailable();
+			return (meterRegistry != null) ? new MicrometerChunkRecorder(meterRegistry) : ChunkRecorder.NONE;
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterRegistry.class)
+	static class EntityCacheMetricsConfiguration {
 
+		@Bean
+		@ConditionalOnMissingBean
+		EntityCacheMetrics entityCacheMetrics(EntityCacheManager entityCacheManager) {
+			return new EntityCacheMetrics(entityCacheManager);
+		}
+	}
 }
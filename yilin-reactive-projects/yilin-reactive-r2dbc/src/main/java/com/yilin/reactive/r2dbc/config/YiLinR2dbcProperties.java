@@ -0,0 +1,597 @@
+package com.yilin.reactive.r2dbc.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.yilin.reactive.r2dbc.core.TenantContext;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: YiLin R2DBC 仓库配置.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/20 9:41
+ * @since 2024.0.1
+ */
+@ConfigurationProperties("yilin.r2dbc")
+public class YiLinR2dbcProperties {
+
+	/**
+	 * 分页总数配置.
+	 */
+	private Count count = new Count();
+
+	/**
+	 * 批量逻辑删除配置.
+	 */
+	private LogicDelete logicDelete = new LogicDelete();
+
+	/**
+	 * 多租户配置.
+	 */
+	private Tenant tenant = new Tenant();
+
+	/**
+	 * 语句模板缓存配置.
+	 */
+	private StatementCache statementCache = new StatementCache();
+
+	/**
+	 * 读写分离配置.
+	 */
+	private Routing routing = new Routing();
+
+	/**
+	 * 请求合并配置.
+	 */
+	private Coalescing coalescing = new Coalescing();
+
+	/**
+	 * 按主键批量加载配置.
+	 */
+	private BatchLoad batchLoad = new BatchLoad();
+
+	/**
+	 * 命名 SQL 配置.
+	 */
+	private NamedSql namedSql = new NamedSql();
+
+	/**
+	 * 仓库方法指标配置.
+	 */
+	private Metrics metrics = new Metrics();
+
+	/**
+	 * 主键生成配置.
+	 */
+	private IdGenerator idGenerator = new IdGenerator();
+
+	/**
+	 * 批量更新配置.
+	 */
+	private UpdateBatch updateBatch = new UpdateBatch();
+
+	public Count getCount() {
+		return count;
+	}
+
+	public YiLinR2dbcProperties setCount(Count count) {
+		this.count = count;
+		return this;
+	}
+
+	public LogicDelete getLogicDelete() {
+		return logicDelete;
+	}
+
+	public YiLinR2dbcProperties setLogicDelete(LogicDelete logicDelete) {
+		this.logicDelete = logicDelete;
+		return this;
+	}
+
+	public Tenant getTenant() {
+		return tenant;
+	}
+
+	public YiLinR2dbcProperties setTenant(Tenant tenant) {
+		this.tenant = tenant;
+		return this;
+	}
+
+	public StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	public YiLinR2dbcProperties setStatementCache(StatementCache statementCache) {
+		this.statementCache = statementCache;
+		return this;
+	}
+
+	public Routing getRouting() {
+		return routing;
+	}
+
+	public YiLinR2dbcProperties setRouting(Routing routing) {
+		this.routing = routing;
+		return this;
+	}
+
+	public Coalescing getCoalescing() {
+		return coalescing;
+	}
+
+	public YiLinR2dbcProperties setCoalescing(Coalescing coalescing) {
+		this.coalescing = coalescing;
+		return this;
+	}
+
+	public BatchLoad getBatchLoad() {
+		return batchLoad;
+	}
+
+	public YiLinR2dbcProperties setBatchLoad(BatchLoad batchLoad) {
+		this.batchLoad = batchLoad;
+		return this;
+	}
+
+	public NamedSql getNamedSql() {
+		return namedSql;
+	}
+
+	public YiLinR2dbcProperties setNamedSql(NamedSql namedSql) {
+		this.namedSql = namedSql;
+		return this;
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	public YiLinR2dbcProperties setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	public IdGenerator getIdGenerator() {
+		return idGenerator;
+	}
+
+	public YiLinR2dbcProperties setIdGenerator(IdGenerator idGenerator) {
+		this.idGenerator = idGenerator;
+		return this;
+	}
+
+	public UpdateBatch getUpdateBatch() {
+		return updateBatch;
+	}
+
+	public YiLinR2dbcProperties setUpdateBatch(UpdateBatch updateBatch) {
+		this.updateBatch = updateBatch;
+		return this;
+	}
+
+	public static class Count {
+
+		/**
+		 * 是否缓存分页查询的总数.
+		 */
+		private boolean cacheEnabled = false;
+
+		/**
+		 * 总数缓存的有效期.
+		 */
+		private Duration cacheTtl = Duration.ofSeconds(30);
+
+		/**
+		 * 总数缓存的最大条目数.
+		 */
+		private int cacheMaximumSize = 1024;
+
+		/**
+		 * 使用近似总数的表名, 无查询条件时读取数据库统计信息而不是执行 COUNT. 统计信息包含所有行,
+		 * 实体存在租户字段或逻辑删除字段(且未包含已删除数据)时仍执行 COUNT.
+		 */
+		private Set<String> approximateTables = new HashSet<>();
+
+		public boolean isCacheEnabled() {
+			return cacheEnabled;
+		}
+
+		public Count setCacheEnabled(boolean cacheEnabled) {
+			this.cacheEnabled = cacheEnabled;
+			return this;
+		}
+
+		public Duration getCacheTtl() {
+			return cacheTtl;
+		}
+
+		public Count setCacheTtl(Duration cacheTtl) {
+			this.cacheTtl = cacheTtl;
+			return this;
+		}
+
+		public int getCacheMaximumSize() {
+			return cacheMaximumSize;
+		}
+
+		public Count setCacheMaximumSize(int cacheMaximumSize) {
+			this.cacheMaximumSize = cacheMaximumSize;
+			return this;
+		}
+
+		public Set<String> getApproximateTables() {
+			return approximateTables;
+		}
+
+		public Count setApproximateTables(Set<String> approximateTables) {
+			this.approximateTables = approximateTables;
+			return this;
+		}
+	}
+
+	public static class LogicDelete {
+
+		/**
+		 * 每条 UPDATE 语句中的最大主键数量.
+		 */
+		private int chunkSize = 1000;
+
+		/**
+		 * 同时执行的 UPDATE 语句数量.
+		 */
+		private int concurrency = 1;
+
+		public int getChunkSize() {
+			return chunkSize;
+		}
+
+		public LogicDelete setChunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		public int getConcurrency() {
+			return concurrency;
+		}
+
+		public LogicDelete setConcurrency(int concurrency) {
+			this.concurrency = concurrency;
+			return this;
+		}
+	}
+
+	public static class Tenant {
+
+		/**
+		 * Reactor Context 中没有租户 ID 时使用的租户 ID.
+		 */
+		private String defaultTenantId = TenantContext.DEFAULT_TENANT_ID;
+
+		public String getDefaultTenantId() {
+			return defaultTenantId;
+		}
+
+		public Tenant setDefaultTenantId(String defaultTenantId) {
+			this.defaultTenantId = defaultTenantId;
+			return this;
+		}
+	}
+
+	public static class StatementCache {
+
+		/**
+		 * 是否按查询结构缓存 findByQuery, findOneByQuery 与 countByQuery 渲染的 SQL.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * 每个仓库缓存的最大语句数.
+		 */
+		private int maximumSize = 256;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public StatementCache setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public int getMaximumSize() {
+			return maximumSize;
+		}
+
+		public StatementCache setMaximumSize(int maximumSize) {
+			this.maximumSize = maximumSize;
+			return this;
+		}
+	}
+
+	public static class Coalescing {
+
+		/**
+		 * 是否合并并发的相同读请求(findById, findOneByQuery, findByQuery, countByQuery), 只共享执行中的请求, 不缓存结果.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * findByQuery 合并时保留的最大行数, 结果超过该行数后之后的相同请求单独执行. 为 0 时只合并返回单个结果的请求.
+		 */
+		private int maxReplay = 1000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public Coalescing setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public int getMaxReplay() {
+			return maxReplay;
+		}
+
+		public Coalescing setMaxReplay(int maxReplay) {
+			this.maxReplay = maxReplay;
+			return this;
+		}
+	}
+
+	public static class BatchLoad {
+
+		/**
+		 * 每次批量查询的最大主键数量.
+		 */
+		private int maxBatchSize = 100;
+
+		/**
+		 * 等待合并的最长时间.
+		 */
+		private Duration maxWait = Duration.ofMillis(5);
+
+		public int getMaxBatchSize() {
+			return maxBatchSize;
+		}
+
+		public BatchLoad setMaxBatchSize(int maxBatchSize) {
+			this.maxBatchSize = maxBatchSize;
+			return this;
+		}
+
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		public BatchLoad setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+			return this;
+		}
+	}
+
+	public static class NamedSql {
+
+		/**
+		 * 加载 *.sql 文件的类路径目录.
+		 */
+		private String location = "sql";
+
+		public String getLocation() {
+			return location;
+		}
+
+		public NamedSql setLocation(String location) {
+			this.location = location;
+			return this;
+		}
+	}
+
+	public static class Metrics {
+
+		/**
+		 * 存在 MeterRegistry 时是否记录仓库方法的耗时、返回行数与异常, 以及分块逻辑删除每块的耗时与行数.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * 是否发布耗时直方图, 用于在监控系统中计算百分位.
+		 */
+		private boolean percentileHistogram = false;
+
+		/**
+		 * 慢查询阈值, 超过时记录日志(包括执行的 SQL), 为空时不记录.
+		 */
+		private Duration slowQueryThreshold;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public Metrics setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public boolean isPercentileHistogram() {
+			return percentileHistogram;
+		}
+
+		public Metrics setPercentileHistogram(boolean percentileHistogram) {
+			this.percentileHistogram = percentileHistogram;
+			return this;
+		}
+
+		public Duration getSlowQueryThreshold() {
+			return slowQueryThreshold;
+		}
+
+		public Metrics setSlowQueryThreshold(Duration slowQueryThreshold) {
+			this.slowQueryThreshold = slowQueryThreshold;
+			return this;
+		}
+	}
+
+	public static class IdGenerator {
+
+		/**
+		 * 是否在写入前为主键类型为 Long 且主键为空的实体生成 Snowflake ID, 开启后不再使用数据库自增主键.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 工作节点 ID, 0 到 1023, 同时运行的每个实例必须不同. 开启主键生成时必须配置, 没有默认值.
+		 */
+		private Long workerId;
+
+		/**
+		 * 允许的最大时钟回拨, 同时是生成的 ID 中的时间戳领先时钟的最大时间. 以相同工作节点 ID 重启的耗时应超过此值.
+		 */
+		private Duration maxClockBackward = Duration.ofSeconds(5);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public IdGenerator setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public Long getWorkerId() {
+			return workerId;
+		}
+
+		public IdGenerator setWorkerId(Long workerId) {
+			this.workerId = workerId;
+			return this;
+		}
+
+		public Duration getMaxClockBackward() {
+			return maxClockBackward;
+		}
+
+		public IdGenerator setMaxClockBackward(Duration maxClockBackward) {
+			this.maxClockBackward = maxClockBackward;
+			return this;
+		}
+	}
+
+	public static class UpdateBatch {
+
+		/**
+		 * 批量更新使用的语句形式.
+		 */
+		private Mode mode = Mode.AUTO;
+
+		public Mode getMode() {
+			return mode;
+		}
+
+		public UpdateBatch setMode(Mode mode) {
+			this.mode = mode;
+			return this;
+		}
+
+		public enum Mode {
+
+			/**
+			 * PostgreSQL 与 H2 使用 {@link #STATEMENT_BATCH}, 其他数据库使用 {@link #CASE_WHEN}.
+			 */
+			AUTO,
+
+			/**
+			 * 一条 {@code UPDATE ... WHERE id = ?} 语句通过 {@code Statement.add()} 绑定多组参数, 适用于能流水线执行参数批的驱动.
+			 */
+			STATEMENT_BATCH,
+
+			/**
+			 * 一条 {@code UPDATE ... SET c = CASE id WHEN ... END WHERE id IN (...)} 语句更新一批数据.
+			 */
+			CASE_WHEN
+		}
+	}
+
+	public static class Routing {
+
+		/**
+		 * 是否开启读写分离. 开启后仓库的查询在事务外按轮询使用从库, 写操作与事务使用 spring.r2dbc 配置的主库.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 从库.
+		 */
+		private List<Replica> replicas = new ArrayList<>();
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public Routing setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public List<Replica> getReplicas() {
+			return replicas;
+		}
+
+		public Routing setReplicas(List<Replica> replicas) {
+			this.replicas = replicas;
+			return this;
+		}
+	}
+
+	public static class Replica {
+
+		/**
+		 * 从库的 R2DBC URL, 使用 r2dbc:pool: 前缀时创建连接池.
+		 */
+		private String url;
+
+		/**
+		 * 从库用户名.
+		 */
+		private String username;
+
+		/**
+		 * 从库密码.
+		 */
+		private String password;
+
+		public String getUrl() {
+			return url;
+		}
+
+		public Replica setUrl(String url) {
+			this.url = url;
+			return this;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public Replica setUsername(String username) {
+			this.username = username;
+			return this;
+		}
+
+		public String getPassword() {
+			return password;
+		}
+
+		public Replica setPassword(String password) {
+			this.password = password;
+			return this;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 包装 {@link ConnectionFactory} 时把关闭操作委托给被包装的实例. Spring Boot 以
+ * {@code @Bean(destroyMethod = "dispose")} 声明连接池, 包装后的 bean 也需要提供 {@code dispose()} 方法关闭连接池.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/20 10:15
+ * @since 2024.0.1
+ */
+final class ConnectionFactoryLifecycle {
+
+	private ConnectionFactoryLifecycle() {
+	}
+
+	static Mono<Void> close(ConnectionFactory target) {
+		if (target instanceof Closeable closeable) {
+			return Mono.from(closeable.close());
+		}
+		if (target instanceof Disposable disposable) {
+			return Mono.fromRunnable(disposable::dispose);
+		}
+		return Mono.empty();
+	}
+
+	static void dispose(ConnectionFactory target) {
+		if (target instanceof Disposable disposable) {
+			disposable.dispose();
+		}
+		else if (target instanceof Closeable closeable) {
+			Mono.from(closeable.close()).block();
+		}
+	}
+
+	static boolean isDisposed(ConnectionFactory target) {
+		return target instanceof Disposable disposable && disposable.isDisposed();
+	}
+}
@@ -0,0 +1,66 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import reactor.util.context.Context;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 记录一次调用中执行的 SQL. 放入 Reactor Context({@link #attach(Context)})后,
+ * 经过 {@link QueryRecordingConnectionFactory} 执行的语句会记录到此对象, 最多保留前 {@value #MAX_STATEMENTS} 条.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/6 9:40
+ * @since 2024.0.1
+ */
+public class QueryRecorder {
+
+	/**
+	 * Reactor Context 中记录器的 key.
+	 */
+	public static final String KEY = QueryRecorder.class.getName();
+
+	static final int MAX_STATEMENTS = 8;
+
+	private final List<String> statements = new ArrayList<>();
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * 放入 Reactor Context.
+	 * @param context context
+	 * @return /
+	 */
+	public Context attach(Context context) {
+		return context.put(KEY, this);
+	}
+
+	void record(String sql) {
+		if (this.count.getAndIncrement() < MAX_STATEMENTS) {
+			synchronized (this.statements) {
+				this.statements.add(sql);
+			}
+		}
+	}
+
+	/**
+	 * 记录的 SQL.
+	 * @return /
+	 */
+	public List<String> getStatements() {
+		synchronized (this.statements) {
+			return List.copyOf(this.statements);
+		}
+	}
+
+	/**
+	 * 执行的语句总数, 包括未保留的.
+	 * @return /
+	 */
+	public int getCount() {
+		return this.count.get();
+	}
+}
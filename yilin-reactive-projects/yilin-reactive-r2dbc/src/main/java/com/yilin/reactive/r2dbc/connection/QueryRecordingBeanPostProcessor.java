@@ -0,0 +1,35 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 将 Spring Boot 创建的 {@code connectionFactory} 包装为 {@link QueryRecordingConnectionFactory}.
+ * 在 {@link ReadWriteRoutingBeanPostProcessor} 之后执行, 主库与从库执行的语句都会被记录.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/6 9:40
+ * @since 2024.0.1
+ */
+public class QueryRecordingBeanPostProcessor implements BeanPostProcessor, Ordered {
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!ReadWriteRoutingBeanPostProcessor.PRIMARY_BEAN_NAME.equals(beanName)
+				|| !(bean instanceof ConnectionFactory connectionFactory)
+				|| bean instanceof QueryRecordingConnectionFactory) {
+			return bean;
+		}
+		return new QueryRecordingConnectionFactory(connectionFactory);
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE;
+	}
+}
@@ -0,0 +1,115 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 记录执行的 SQL 的 {@link ConnectionFactory}. 语句执行时, 如果 Reactor Context 中存在
+ * {@link QueryRecorder}, 则把创建语句时的 SQL 记录到其中, 不存在时直接执行, 不产生额外开销.
+ * 关闭时关闭被包装的实例.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/6 9:40
+ * @since 2024.0.1
+ */
+public class QueryRecordingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable, Disposable {
+
+	private final ConnectionFactory delegate;
+
+	public QueryRecordingConnectionFactory(ConnectionFactory delegate) {
+		Assert.notNull(delegate, "ConnectionFactory must not be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Publisher<? extends Connection> create() {
+		return Mono.from(this.delegate.create()).map(connection -> proxy(Connection.class, connection,
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+						return recording(statement, (String) args[0]);
+					}
+					return result;
+				}));
+	}
+
+	private static Statement recording(Statement statement, String sql) {
+		return proxy(Statement.class, statement, (proxy, method, args) -> {
+			if (method.getName().equals("execute") && method.getParameterCount() == 0) {
+				return Flux.deferContextual(context -> {
+					context.<QueryRecorder>getOrEmpty(QueryRecorder.KEY).ifPresent(recorder -> recorder.record(sql));
+					return statement.execute();
+				});
+			}
+			Object result = invoke(statement, method, args);
+			// bind, add, fetchSize 等方法返回语句本身, 返回代理以保持链式调用
+			return (result == statement) ? proxy : result;
+		});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(QueryRecordingConnectionFactory.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getDeclaringClass() == Object.class) {
+						return switch (method.getName()) {
+							case "equals" -> proxy == args[0];
+							case "hashCode" -> System.identityHashCode(proxy);
+							default -> "Recording " + target;
+						};
+					}
+					return handler.invoke(proxy, method, args);
+				});
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return this.delegate.getMetadata();
+	}
+
+	@Override
+	public ConnectionFactory unwrap() {
+		return this.delegate;
+	}
+
+	@Override
+	public Mono<Void> close() {
+		return ConnectionFactoryLifecycle.close(this.delegate);
+	}
+
+	@Override
+	public void dispose() {
+		ConnectionFactoryLifecycle.dispose(this.delegate);
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return ConnectionFactoryLifecycle.isDisposed(this.delegate);
+	}
+}
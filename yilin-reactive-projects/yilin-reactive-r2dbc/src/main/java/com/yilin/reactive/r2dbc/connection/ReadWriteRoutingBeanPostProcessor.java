@@ -0,0 +1,77 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 将 Spring Boot 创建的 {@code connectionFactory} 作为主库包装为 {@link ReadWriteRoutingConnectionFactory},
+ * 从库按 {@code yilin.r2dbc.routing.replicas} 创建. 依赖 {@link ConnectionFactory} 的 DatabaseClient、
+ * R2dbcEntityTemplate 与事务管理器均使用包装后的实例. 包装后的实例的 {@code dispose()} 关闭主库连接池,
+ * 从库在本处理器销毁时关闭.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/27 10:20
+ * @since 2024.0.1
+ */
+public class ReadWriteRoutingBeanPostProcessor implements BeanPostProcessor, DisposableBean, Ordered {
+
+	/**
+	 * 被包装的主库 bean 名称, 与 Spring Boot 自动配置一致.
+	 */
+	public static final String PRIMARY_BEAN_NAME = "connectionFactory";
+
+	private final ObjectProvider<YiLinR2dbcProperties> properties;
+
+	private final List<ConnectionFactory> replicas = new ArrayList<>();
+
+	public ReadWriteRoutingBeanPostProcessor(ObjectProvider<YiLinR2dbcProperties> properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!PRIMARY_BEAN_NAME.equals(beanName) || !(bean instanceof ConnectionFactory primary)
+				|| bean instanceof ReadWriteRoutingConnectionFactory) {
+			return bean;
+		}
+		for (YiLinR2dbcProperties.Replica replica : this.properties.getObject().getRouting().getReplicas()) {
+			Assert.hasText(replica.getUrl(), "Replica url must not be empty");
+			this.replicas.add(ConnectionFactoryBuilder.withUrl(replica.getUrl())
+					.username(replica.getUsername())
+					.password(replica.getPassword())
+					.build());
+		}
+		return new ReadWriteRoutingConnectionFactory(primary, this.replicas);
+	}
+
+	@Override
+	public int getOrder() {
+		return 0;
+	}
+
+	@Override
+	public void destroy() {
+		for (ConnectionFactory replica : this.replicas) {
+			if (replica instanceof Closeable closeable) {
+				Mono.from(closeable.close()).block();
+			}
+		}
+		this.replicas.clear();
+	}
+}
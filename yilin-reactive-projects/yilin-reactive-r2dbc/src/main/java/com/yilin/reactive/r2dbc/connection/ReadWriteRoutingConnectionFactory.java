@@ -0,0 +1,110 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.r2dbc.core.ReactiveTransactions;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 读写分离的 {@link ConnectionFactory}. Reactor Context 中标记为只读({@link #markReadOnly(Context)})
+ * 且不在事务中的请求按轮询分配到从库, 其余请求(写操作、事务内的所有操作)使用主库.
+ * 从库存在复制延迟, 写后立即读的场景应放在事务中或不标记只读.
+ * <p>关闭时只关闭主库, 从库由创建者关闭.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/27 10:20
+ * @since 2024.0.1
+ */
+public class ReadWriteRoutingConnectionFactory extends AbstractRoutingConnectionFactory
+		implements Wrapped<ConnectionFactory>, Closeable, Disposable {
+
+	/**
+	 * Reactor Context 中只读标记的 key.
+	 */
+	public static final String READ_ONLY_KEY = ReadWriteRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+	private static final String REPLICA_PREFIX = "replica-";
+
+	private final ConnectionFactory primary;
+
+	private final int replicaCount;
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+	/**
+	 * 创建读写分离的 ConnectionFactory, 创建后会立即初始化.
+	 * @param primary 主库
+	 * @param replicas 从库, 为空时所有请求都使用主库
+	 */
+	public ReadWriteRoutingConnectionFactory(ConnectionFactory primary, List<ConnectionFactory> replicas) {
+		Assert.notNull(primary, "Primary ConnectionFactory must not be null");
+		Assert.notNull(replicas, "Replica ConnectionFactories must not be null");
+		Map<String, ConnectionFactory> targets = new HashMap<>();
+		for (int i = 0; i < replicas.size(); i++) {
+			targets.put(REPLICA_PREFIX + i, replicas.get(i));
+		}
+		this.primary = primary;
+		this.replicaCount = replicas.size();
+		setDefaultTargetConnectionFactory(primary);
+		setTargetConnectionFactories(targets);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * 在 Reactor Context 中标记只读, 用于 {@code contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly)}.
+	 * @param context context
+	 * @return /
+	 */
+	public static Context markReadOnly(Context context) {
+		return context.put(READ_ONLY_KEY, Boolean.TRUE);
+	}
+
+	@Override
+	protected Mono<Object> determineCurrentLookupKey() {
+		if (this.replicaCount == 0) {
+			return Mono.empty();
+		}
+		return Mono.deferContextual(context -> context.getOrDefault(READ_ONLY_KEY, Boolean.FALSE)
+				? ReactiveTransactions.isActualTransactionActive().filter(active -> !active).map(active -> nextReplica())
+				: Mono.empty());
+	}
+
+	private Object nextReplica() {
+		return REPLICA_PREFIX + Math.floorMod(this.counter.getAndIncrement(), this.replicaCount);
+	}
+
+	@Override
+	public ConnectionFactory unwrap() {
+		return this.primary;
+	}
+
+	@Override
+	public Mono<Void> close() {
+		return ConnectionFactoryLifecycle.close(this.primary);
+	}
+
+	@Override
+	public void dispose() {
+		ConnectionFactoryLifecycle.dispose(this.primary);
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return ConnectionFactoryLifecycle.isDisposed(this.primary);
+	}
+}
@@ -0,0 +1,180 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.SimpleFunction;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 分组聚合查询, 如 {@code SELECT t.category, SUM(t.orders) AS sum_orders FROM t WHERE ... GROUP BY t.category}.
+ * 聚合在数据库中执行, 只返回结果行. 分组与聚合的属性为实体属性名, 渲染时转换为列名. 不可变, 每次调用返回新的实例.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/11 9:30
+ * @since 2024.0.1
+ */
+public final class Aggregation {
+
+	private static final Pattern ALIAS = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+	private static final Aggregation EMPTY = new Aggregation(List.of(), List.of());
+
+	private final List<String> groupBy;
+
+	private final List<Aggregate> aggregates;
+
+	private Aggregation(List<String> groupBy, List<Aggregate> aggregates) {
+		this.groupBy = groupBy;
+		this.aggregates = aggregates;
+	}
+
+	public static Aggregation empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * 追加分组属性, 结果中的名称为属性名.
+	 * @param properties 属性名
+	 * @return /
+	 */
+	public Aggregation groupBy(String... properties) {
+		List<String> groupBy = new ArrayList<>(this.groupBy);
+		for (String property : properties) {
+			Assert.hasText(property, "GroupBy property must not be empty");
+			groupBy.add(property);
+		}
+		return new Aggregation(Collections.unmodifiableList(groupBy), this.aggregates);
+	}
+
+	/**
+	 * 追加聚合函数.
+	 * @param function 函数
+	 * @param property 属性名, {@link Function#COUNT} 为 {@literal null} 时表示 {@code COUNT(*)}
+	 * @param alias 结果中的名称, 为 {@literal null} 时使用 {@code 函数_属性} 的形式, 如 {@code sum_orders}
+	 * @return /
+	 */
+	public Aggregation with(Function function, @Nullable String property, @Nullable String alias) {
+		Assert.notNull(function, "Function must not be null");
+		Assert.isTrue(property != null || function == Function.COUNT, () -> function + " requires a property");
+		String name = (alias != null) ? alias : function.defaultAlias(property);
+		Assert.isTrue(ALIAS.matcher(name).matches(), () -> "Invalid alias '" + name + "'");
+		Assert.isTrue(!getNames().contains(name), () -> "Duplicate alias '" + name + "'");
+		List<Aggregate> aggregates = new ArrayList<>(this.aggregates);
+		aggregates.add(new Aggregate(function, property, name));
+		return new Aggregation(this.groupBy, Collections.unmodifiableList(aggregates));
+	}
+
+	/**
+	 * 结果列的名称, 依次为分组属性名与聚合函数的别名.
+	 * @return /
+	 */
+	public List<String> getNames() {
+		List<String> names = new ArrayList<>(this.groupBy);
+		this.aggregates.forEach(aggregate -> names.add(aggregate.alias()));
+		return names;
+	}
+
+	public boolean isEmpty() {
+		return this.groupBy.isEmpty() && this.aggregates.isEmpty();
+	}
+
+	/**
+	 * 渲染查询语句. 条件部分由 {@link StatementMapper} 渲染并绑定参数, 再追加 {@code GROUP BY}.
+	 * @param strategy dataAccessStrategy
+	 * @param entity 实体元数据
+	 * @param criteria 条件, 已包含租户与逻辑删除条件
+	 * @return /
+	 */
+	public PreparedOperation<String> render(ReactiveDataAccessStrategy strategy, RelationalPersistentEntity<?> entity,
+			Criteria criteria) {
+		Assert.state(!isEmpty(), "Aggregation must contain at least one group by property or aggregate function");
+		StatementMapper mapper = strategy.getStatementMapper().forType(entity.getType());
+		StatementMapper.SelectSpec select = mapper.createSelect(entity.getTableName()).doWithTable((table, spec) -> {
+			List<Expression> projection = new ArrayList<>();
+			this.groupBy.forEach(property -> projection.add(table.column(getColumnName(entity, property))));
+			this.aggregates.forEach(aggregate -> projection.add(aggregate.toExpression(table, entity)));
+			return spec.withProjection(projection);
+		});
+		PreparedOperation<?> operation = mapper.getMappedObject(criteria.isEmpty() ? select : select.withCriteria(criteria));
+		if (this.groupBy.isEmpty()) {
+			return new GroupedOperation(operation, "");
+		}
+		String table = strategy.toSql(entity.getTableName());
+		List<String> columns = this.groupBy.stream()
+				.map(property -> table + "." + strategy.toSql(getColumnName(entity, property)))
+				.toList();
+		return new GroupedOperation(operation, " GROUP BY " + String.join(", ", columns));
+	}
+
+	private static SqlIdentifier getColumnName(RelationalPersistentEntity<?> entity, String property) {
+		return entity.getRequiredPersistentProperty(property).getColumnName();
+	}
+
+	@Override
+	public String toString() {
+		return "Aggregation{groupBy=" + this.groupBy + ", aggregates=" + this.aggregates + "}";
+	}
+
+	/**
+	 * 聚合函数.
+	 */
+	public enum Function {
+
+		COUNT, SUM, AVG, MIN, MAX;
+
+		String defaultAlias(@Nullable String property) {
+			String name = name().toLowerCase(Locale.ROOT);
+			return (property != null) ? name + "_" + property : name;
+		}
+	}
+
+	private record Aggregate(Function function, @Nullable String property, String alias) {
+
+		Expression toExpression(Table table, RelationalPersistentEntity<?> entity) {
+			Expression argument = (this.property != null) ? table.column(getColumnName(entity, this.property))
+					: Expressions.asterisk();
+			SimpleFunction expression = (this.function == Function.COUNT) ? Functions.count(argument)
+					: SimpleFunction.create(this.function.name(), List.of(argument));
+			return expression.as(this.alias);
+		}
+	}
+
+	/**
+	 * 在渲染好的查询语句后追加 {@code GROUP BY}, 参数绑定委托给原语句.
+	 */
+	private record GroupedOperation(PreparedOperation<?> select, String suffix) implements PreparedOperation<String> {
+
+		@Override
+		public String getSource() {
+			return toQuery();
+		}
+
+		@Override
+		public void bindTo(BindTarget target) {
+			this.select.bindTo(target);
+		}
+
+		@Override
+		public String toQuery() {
+			return this.select.toQuery() + this.suffix;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.ContextView;
+
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 按主键批量加载. 时间窗口内或达到批大小的 {@link #load(Object)} 请求合并为一次批量查询,
+ * 再按主键把结果分发给各个请求. 不同分区(如租户)的请求分别查询, 查询在该分区第一个请求的 Reactor Context 中执行.
+ * 事务中的请求不参与合并. 一批请求查询失败只影响该批请求, 加载器关闭后的请求逐个查询.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/1 9:20
+ * @since 2024.0.1
+ * @param <K> 主键类型
+ * @param <V> 实体类型
+ */
+public class BatchLoader<K, V> implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchLoader.class);
+
+	private final Sinks.Many<Request<K, V>> requests = Sinks.many().unicast().onBackpressureBuffer();
+
+	private final Function<List<K>, Flux<V>> loader;
+
+	private final Function<V, K> keyMapper;
+
+	private final Function<ContextView, Object> partitioner;
+
+	private final Disposable subscription;
+
+	/**
+	 * 创建批量加载器.
+	 * @param loader 按主键集合查询
+	 * @param keyMapper 获取结果的主键
+	 * @param partitioner 请求的分区, 同一批次中不同分区的请求分别查询
+	 * @param maxBatchSize 最大批大小
+	 * @param maxWait 等待合并的最长时间
+	 */
+	public BatchLoader(Function<List<K>, Flux<V>> loader, Function<V, K> keyMapper,
+			Function<ContextView, Object> partitioner, int maxBatchSize, Duration maxWait) {
+		Assert.isTrue(maxBatchSize > 0, "MaxBatchSize must be greater than 0");
+		Assert.isTrue(!maxWait.isNegative() && !maxWait.isZero(), "MaxWait must be positive");
+		this.loader = loader;
+		this.keyMapper = keyMapper;
+		this.partitioner = partitioner;
+		this.subscription = this.requests.asFlux()
+				.bufferTimeout(maxBatchSize, maxWait)
+				.onBackpressureBuffer()
+				.flatMap(batch -> Mono.defer(() -> dispatch(batch)).onErrorResume(ex -> failAll(batch, ex)))
+				.subscribe(null, ex -> logger.error("Batch loader terminated, subsequent loads are executed individually", ex));
+	}
+
+	/**
+	 * 加载主键对应的实体, 不存在时为空.
+	 * @param key 主键
+	 * @return /
+	 */
+	public Mono<V> load(K key) {
+		Assert.notNull(key, "Key must not be null");
+		return ReactiveTransactions.isActualTransactionActive().flatMap(active -> active ? this.loader.apply(List.of(key)).next()
+				: Mono.deferContextual(context -> {
+					Sinks.One<V> result = Sinks.one();
+					try {
+						this.requests.emitNext(new Request<>(key, result, context),
+								Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+					}
+					catch (Sinks.EmissionException ex) {
+						return this.loader.apply(List.of(key)).next();
+					}
+					return result.asMono();
+				}));
+	}
+
+	private Mono<Void> dispatch(List<Request<K, V>> batch) {
+		Map<Object, List<Request<K, V>>> partitions = new LinkedHashMap<>();
+		for (Request<K, V> request : batch) {
+			partitions.computeIfAbsent(this.partitioner.apply(request.context()), partition -> new ArrayList<>()).add(request);
+		}
+		return Flux.fromIterable(partitions.values()).flatMap(this::dispatchPartition).then();
+	}
+
+	private Mono<Void> dispatchPartition(List<Request<K, V>> partition) {
+		List<K> keys = partition.stream().map(Request::key).distinct().toList();
+		return Mono.defer(() -> this.loader.apply(keys).collectMap(this.keyMapper))
+				.contextWrite(partition.get(0).context())
+				.doOnNext(results -> partition.forEach(request -> {
+					V value = results.get(request.key());
+					if (value != null) {
+						request.result().tryEmitValue(value);
+					}
+					else {
+						request.result().tryEmitEmpty();
+					}
+				}))
+				.onErrorResume(ex -> failAll(partition, ex))
+				.then();
+	}
+
+	private Mono<Void> failAll(List<Request<K, V>> requests, Throwable ex) {
+		requests.forEach(request -> request.result().tryEmitError(ex));
+		return Mono.empty();
+	}
+
+	@Override
+	public void dispose() {
+		this.subscription.dispose();
+		this.requests.tryEmitComplete();
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.subscription.isDisposed();
+	}
+
+	private record Request<K, V>(K key, Sinks.One<V> result, ContextView context) {
+	}
+}
@@ -0,0 +1,150 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 参数批形式的批量更新, 一条 {@code UPDATE t SET a = ?, b = ? WHERE id = ?} 语句通过
+ * {@link Statement#add()} 绑定多组参数, 由驱动一次提交. 多行 {@code CASE} 形式见 {@link BulkStatement#update}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/13 9:30
+ * @since 2024.0.1
+ */
+public class BatchUpdateStatement {
+
+	private final String sql;
+
+	private final List<BindMarker> markers;
+
+	private final List<List<Parameter>> bindings;
+
+	private BatchUpdateStatement(String sql, List<BindMarker> markers, List<List<Parameter>> bindings) {
+		this.sql = sql;
+		this.markers = markers;
+		this.bindings = bindings;
+	}
+
+	/**
+	 * 创建批量更新语句.
+	 * @param strategy dataAccessStrategy
+	 * @param dialect 方言, 用于生成绑定标记
+	 * @param table 表名
+	 * @param idColumn 主键列
+	 * @param columns 更新的列, 不包括主键列, 所有行的列必须一致
+	 * @param rows 行, 必须包含主键列
+	 * @param filters 追加的等值条件, 如租户
+	 * @return /
+	 */
+	public static BatchUpdateStatement update(ReactiveDataAccessStrategy strategy, R2dbcDialect dialect, SqlIdentifier table,
+			SqlIdentifier idColumn, List<SqlIdentifier> columns, List<OutboundRow> rows, Map<SqlIdentifier, Object> filters) {
+		BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+		List<BindMarker> markers = new ArrayList<>();
+		StringJoiner assignments = new StringJoiner(", ");
+		for (SqlIdentifier column : columns) {
+			BindMarker marker = bindMarkers.next();
+			markers.add(marker);
+			assignments.add(strategy.toSql(column) + " = " + marker.getPlaceholder());
+		}
+		StringJoiner conditions = new StringJoiner(" AND ");
+		BindMarker idMarker = bindMarkers.next();
+		markers.add(idMarker);
+		conditions.add(strategy.toSql(idColumn) + " = " + idMarker.getPlaceholder());
+		for (SqlIdentifier column : filters.keySet()) {
+			BindMarker marker = bindMarkers.next();
+			markers.add(marker);
+			conditions.add(strategy.toSql(column) + " = " + marker.getPlaceholder());
+		}
+		List<List<Parameter>> bindings = new ArrayList<>(rows.size());
+		for (OutboundRow row : rows) {
+			List<Parameter> values = new ArrayList<>(markers.size());
+			columns.forEach(column -> values.add(strategy.getBindValue(row.get(column))));
+			values.add(strategy.getBindValue(row.get(idColumn)));
+			filters.values().forEach(value -> values.add(Parameter.from(value)));
+			bindings.add(values);
+		}
+		String sql = "UPDATE " + strategy.toSql(table) + " SET " + assignments + " WHERE " + conditions;
+		return new BatchUpdateStatement(sql, markers, bindings);
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * 执行语句.
+	 * @param databaseClient databaseClient
+	 * @return 影响的行数
+	 */
+	public Mono<Long> execute(DatabaseClient databaseClient) {
+		return databaseClient.inConnectionMany(connection -> {
+			Statement statement = connection.createStatement(this.sql);
+			for (int i = 0; i < this.bindings.size(); i++) {
+				if (i > 0) {
+					statement.add();
+				}
+				bind(new StatementBindTarget(statement), this.bindings.get(i));
+			}
+			return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+		}).reduce(0L, Long::sum);
+	}
+
+	private void bind(BindTarget target, List<Parameter> values) {
+		for (int i = 0; i < values.size(); i++) {
+			Parameter value = values.get(i);
+			if (value.hasValue()) {
+				this.markers.get(i).bind(target, value.getValue());
+			}
+			else {
+				this.markers.get(i).bindNull(target, value.getType());
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.sql;
+	}
+
+	private record StatementBindTarget(Statement statement) implements BindTarget {
+
+		@Override
+		public void bind(String identifier, Object value) {
+			this.statement.bind(identifier, value);
+		}
+
+		@Override
+		public void bind(int index, Object value) {
+			this.statement.bind(index, value);
+		}
+
+		@Override
+		public void bindNull(String identifier, Class<?> type) {
+			this.statement.bindNull(identifier, type);
+		}
+
+		@Override
+		public void bindNull(int index, Class<?> type) {
+			this.statement.bindNull(index, type);
+		}
+	}
+}
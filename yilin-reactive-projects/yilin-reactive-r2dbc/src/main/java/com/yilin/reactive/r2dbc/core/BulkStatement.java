@@ -0,0 +1,217 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.MySqlDialect;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 多行批量语句, 如 {@code INSERT INTO t (a, b) VALUES (:p0_0, :p0_1), (:p1_0, :p1_1)}.
+ * 一条语句写入一批数据, 写入吞吐量随批大小而不是往返次数增长.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/21 14:16
+ * @since 2024.0.1
+ */
+public class BulkStatement {
+
+	private final String sql;
+
+	private final Map<String, Parameter> bindings;
+
+	private BulkStatement(String sql, Map<String, Parameter> bindings) {
+		this.sql = sql;
+		this.bindings = bindings;
+	}
+
+	/**
+	 * 创建多行 INSERT 语句.
+	 * @param strategy dataAccessStrategy
+	 * @param table 表名
+	 * @param columns 列, 所有行的列必须一致
+	 * @param rows 行
+	 * @return /
+	 */
+	public static BulkStatement insert(ReactiveDataAccessStrategy strategy, SqlIdentifier table,
+			List<SqlIdentifier> columns, List<OutboundRow> rows) {
+		Map<String, Parameter> bindings = new LinkedHashMap<>();
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(strategy.toSql(table))
+				.append(" (").append(columnList(strategy, columns)).append(") VALUES ");
+		sql.append(values(strategy, columns, rows, bindings));
+		return new BulkStatement(sql.toString(), bindings);
+	}
+
+	/**
+	 * 创建多行 UPSERT 语句, 主键冲突时更新其余列. MySQL 使用 {@code ON DUPLICATE KEY UPDATE},
+	 * H2 使用 {@code MERGE INTO ... KEY}, PostgreSQL 使用 {@code ON CONFLICT ... DO UPDATE}.
+	 * <p>指定租户列时租户列不会更新, 主键冲突的数据属于其他租户时不会被覆盖: PostgreSQL 跳过该行,
+	 * MySQL 保留该行原有的值, H2 以主键与租户列匹配, 插入时因主键冲突而失败.
+	 * @param strategy dataAccessStrategy
+	 * @param dialect 方言
+	 * @param table 表名
+	 * @param idColumn 主键列
+	 * @param tenantColumn 租户列, 实体不区分租户时为 {@literal null}
+	 * @param columns 列, 必须包含主键列与租户列
+	 * @param rows 行
+	 * @return /
+	 */
+	public static BulkStatement upsert(ReactiveDataAccessStrategy strategy, R2dbcDialect dialect, SqlIdentifier table,
+			SqlIdentifier idColumn, @Nullable SqlIdentifier tenantColumn, List<SqlIdentifier> columns, List<OutboundRow> rows) {
+		Map<String, Parameter> bindings = new LinkedHashMap<>();
+		String tableName = strategy.toSql(table);
+		String columnList = columnList(strategy, columns);
+		String values = values(strategy, columns, rows, bindings);
+		String id = strategy.toSql(idColumn);
+		List<SqlIdentifier> keys = (tenantColumn != null) ? List.of(idColumn, tenantColumn) : List.of(idColumn);
+		StringBuilder sql = new StringBuilder();
+		if (dialect instanceof MySqlDialect) {
+			String valueFormat = "VALUES(%s)";
+			if (tenantColumn != null) {
+				String tenant = strategy.toSql(tenantColumn);
+				valueFormat = "IF(" + tenant + " = VALUES(" + tenant + "), VALUES(%1$s), %1$s)";
+			}
+			sql.append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") VALUES ")
+					.append(values).append(" ON DUPLICATE KEY UPDATE ")
+					.append(assignments(strategy, keys, columns, valueFormat));
+		}
+		else if (dialect instanceof H2Dialect) {
+			sql.append("MERGE INTO ").append(tableName).append(" (").append(columnList).append(") KEY (")
+					.append(columnList(strategy, keys)).append(") VALUES ").append(values);
+		}
+		else if (dialect instanceof PostgresDialect) {
+			sql.append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") VALUES ")
+					.append(values).append(" ON CONFLICT (").append(id).append(") DO UPDATE SET ")
+					.append(assignments(strategy, keys, columns, "EXCLUDED.%s"));
+			if (tenantColumn != null) {
+				String tenant = strategy.toSql(tenantColumn);
+				sql.append(" WHERE ").append(tableName).append('.').append(tenant).append(" = EXCLUDED.").append(tenant);
+			}
+		}
+		else {
+			throw new InvalidDataAccessApiUsageException("Upsert is not supported for dialect " + dialect.getClass().getName());
+		}
+		return new BulkStatement(sql.toString(), bindings);
+	}
+
+	/**
+	 * 创建多行 UPDATE 语句, 如 {@code UPDATE t SET a = CASE id WHEN :p0_id THEN :p0_0 WHEN :p1_id THEN :p1_0 END
+	 * WHERE id IN (:p0_id, :p1_id)}, 一条语句按主键把每行更新为各自的值.
+	 * @param strategy dataAccessStrategy
+	 * @param table 表名
+	 * @param idColumn 主键列
+	 * @param columns 更新的列, 不包括主键列, 所有行的列必须一致
+	 * @param rows 行, 必须包含主键列
+	 * @param filters 追加的等值条件, 如租户
+	 * @return /
+	 */
+	public static BulkStatement update(ReactiveDataAccessStrategy strategy, SqlIdentifier table, SqlIdentifier idColumn,
+			List<SqlIdentifier> columns, List<OutboundRow> rows, Map<SqlIdentifier, Object> filters) {
+		Map<String, Parameter> bindings = new LinkedHashMap<>();
+		String id = strategy.toSql(idColumn);
+		StringJoiner ids = new StringJoiner(", ", "(", ")");
+		for (int i = 0; i < rows.size(); i++) {
+			String name = "p" + i + "_id";
+			ids.add(":" + name);
+			bindings.put(name, strategy.getBindValue(rows.get(i).get(idColumn)));
+		}
+		StringJoiner assignments = new StringJoiner(", ");
+		for (int j = 0; j < columns.size(); j++) {
+			StringBuilder assignment = new StringBuilder(strategy.toSql(columns.get(j))).append(" = CASE ").append(id);
+			for (int i = 0; i < rows.size(); i++) {
+				String name = "p" + i + "_" + j;
+				assignment.append(" WHEN :p").append(i).append("_id THEN :").append(name);
+				bindings.put(name, strategy.getBindValue(rows.get(i).get(columns.get(j))));
+			}
+			assignments.add(assignment.append(" END"));
+		}
+		StringBuilder sql = new StringBuilder("UPDATE ").append(strategy.toSql(table)).append(" SET ").append(assignments)
+				.append(" WHERE ").append(id).append(" IN ").append(ids);
+		int index = 0;
+		for (Map.Entry<SqlIdentifier, Object> filter : filters.entrySet()) {
+			String name = "f" + index++;
+			sql.append(" AND ").append(strategy.toSql(filter.getKey())).append(" = :").append(name);
+			bindings.put(name, Parameter.from(filter.getValue()));
+		}
+		return new BulkStatement(sql.toString(), bindings);
+	}
+
+	private static String assignments(ReactiveDataAccessStrategy strategy, List<SqlIdentifier> keys,
+			List<SqlIdentifier> columns, String valueFormat) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (SqlIdentifier column : columns) {
+			if (!keys.contains(column)) {
+				String name = strategy.toSql(column);
+				joiner.add(name + " = " + String.format(valueFormat, name));
+			}
+		}
+		return joiner.toString();
+	}
+
+	static String columnList(ReactiveDataAccessStrategy strategy, List<SqlIdentifier> columns) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (SqlIdentifier column : columns) {
+			joiner.add(strategy.toSql(column));
+		}
+		return joiner.toString();
+	}
+
+	static String values(ReactiveDataAccessStrategy strategy, List<SqlIdentifier> columns, List<OutboundRow> rows,
+			Map<String, Parameter> bindings) {
+		StringJoiner values = new StringJoiner(", ");
+		for (int i = 0; i < rows.size(); i++) {
+			OutboundRow row = rows.get(i);
+			StringJoiner value = new StringJoiner(", ", "(", ")");
+			for (int j = 0; j < columns.size(); j++) {
+				String name = "p" + i + "_" + j;
+				value.add(":" + name);
+				bindings.put(name, strategy.getBindValue(row.get(columns.get(j))));
+			}
+			values.add(value.toString());
+		}
+		return values.toString();
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public Map<String, Parameter> getBindings() {
+		return bindings;
+	}
+
+	/**
+	 * 执行语句.
+	 * @param databaseClient databaseClient
+	 * @return 影响的行数
+	 */
+	public Mono<Long> execute(DatabaseClient databaseClient) {
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(this.sql);
+		for (Map.Entry<String, Parameter> entry : this.bindings.entrySet()) {
+			Parameter parameter = entry.getValue();
+			spec = parameter.hasValue() ? spec.bind(entry.getKey(), parameter.getValue())
+					: spec.bindNull(entry.getKey(), parameter.getType());
+		}
+		return spec.fetch().rowsUpdated();
+	}
+
+	@Override
+	public String toString() {
+		return this.sql;
+	}
+}
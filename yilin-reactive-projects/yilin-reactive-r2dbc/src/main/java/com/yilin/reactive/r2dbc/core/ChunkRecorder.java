@@ -0,0 +1,32 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.time.Duration;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 记录分块执行的批量操作, 如分块逻辑删除的每块耗时与行数. 不依赖具体的监控系统,
+ * 存在 MeterRegistry 时由 {@link com.yilin.reactive.r2dbc.repository.support.MicrometerChunkRecorder} 记录为指标.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/4/2 14:20
+ * @since 2024.0.1
+ */
+@FunctionalInterface
+public interface ChunkRecorder {
+
+	/**
+	 * 不记录.
+	 */
+	ChunkRecorder NONE = (type, operation, rows, elapsed) -> {
+	};
+
+	/**
+	 * 记录一块的执行结果.
+	 * @param type 实体类型
+	 * @param operation 操作, 如 {@code logicDelete}
+	 * @param rows 影响的行数
+	 * @param elapsed 耗时
+	 */
+	void record(Class<?> type, String operation, long rows, Duration elapsed);
+}
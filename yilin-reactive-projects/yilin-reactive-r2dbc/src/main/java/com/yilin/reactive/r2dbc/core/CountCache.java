@@ -0,0 +1,76 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 分页总数缓存. 以查询条件(结构与绑定值)为键, 条目在有效期后失效, 超出容量时优先淘汰过期条目.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/20 10:05
+ * @since 2024.0.1
+ */
+public class CountCache {
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final long ttlNanos;
+
+	private final int maximumSize;
+
+	public CountCache(Duration ttl, int maximumSize) {
+		this.ttlNanos = ttl.toNanos();
+		this.maximumSize = maximumSize;
+	}
+
+	@Nullable
+	public Long get(String key) {
+		Entry entry = this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isExpired(System.nanoTime())) {
+			this.entries.remove(key, entry);
+			return null;
+		}
+		return entry.count();
+	}
+
+	public void put(String key, long count) {
+		if (this.entries.size() >= this.maximumSize) {
+			evict();
+		}
+		this.entries.put(key, new Entry(count, System.nanoTime() + this.ttlNanos));
+	}
+
+	public void clear() {
+		this.entries.clear();
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+	private void evict() {
+		long now = System.nanoTime();
+		this.entries.values().removeIf(entry -> entry.isExpired(now));
+		Iterator<String> iterator = this.entries.keySet().iterator();
+		while (this.entries.size() >= this.maximumSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	private record Entry(long count, long expiresAt) {
+
+		boolean isExpired(long now) {
+			return now - this.expiresAt >= 0;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.yilin.reactive.r2dbc.core;
+
+import org.springframework.data.mapping.Parameter;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.model.EntityInstantiators;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 实体浅拷贝. 通过实体的持久化构造器创建新实例并复制其余属性, 支持不可变实体.
+ * 只复制属性值的引用, 可变属性(如集合)仍与原对象共享.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 14:20
+ * @since 2024.0.1
+ * @param <T> 实体类型
+ */
+public final class EntityCopier<T> {
+
+	private static final EntityInstantiators instantiators = new EntityInstantiators();
+
+	private final RelationalPersistentEntity<T> entity;
+
+	public EntityCopier(RelationalPersistentEntity<T> entity) {
+		this.entity = entity;
+	}
+
+	/**
+	 * 复制实体.
+	 * @param source 实体
+	 * @return 新实例
+	 */
+	public T copy(T source) {
+		Assert.notNull(source, "Source must not be null");
+		PersistentPropertyAccessor<T> from = this.entity.getPropertyAccessor(source);
+		T instance = instantiators.getInstantiatorFor(this.entity).createInstance(this.entity,
+				new ParameterValueProvider<RelationalPersistentProperty>() {
+
+					@Override
+					@SuppressWarnings("unchecked")
+					public <V> V getParameterValue(Parameter<V, RelationalPersistentProperty> parameter) {
+						return (V) from.getProperty(entity.getRequiredPersistentProperty(parameter.getName()));
+					}
+				});
+		PersistentPropertyAccessor<T> to = this.entity.getPropertyAccessor(instance);
+		this.entity.doWithProperties((PropertyHandler<RelationalPersistentProperty>) property -> {
+			if (!this.entity.isCreatorArgument(property)) {
+				to.setProperty(property, from.getProperty(property));
+			}
+		});
+		return to.getBean();
+	}
+}
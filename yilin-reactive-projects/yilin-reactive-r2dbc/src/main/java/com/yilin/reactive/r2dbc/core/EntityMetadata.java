@@ -0,0 +1,207 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Optional;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import com.yilin.reactive.persistent.annotations.LogicDelete;
+import com.yilin.reactive.persistent.annotations.ParentId;
+import com.yilin.reactive.persistent.annotations.Status;
+import com.yilin.reactive.persistent.annotations.TenantId;
+import com.yilin.reactive.persistent.enums.DeleteStatus;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 实体元数据. 包含 {@link LogicDelete}, {@link TenantId}, {@link Status}, {@link ParentId} 及主键对应的属性与列,
+ * 包括从父类继承的字段. 由 {@link EntityMetadataRegistry} 按实体类型创建并缓存, 创建后不可变.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/22 10:12
+ * @since 2024.0.1
+ */
+public final class EntityMetadata {
+
+	private final Class<?> type;
+
+	private final SqlIdentifier table;
+
+	@Nullable
+	private final Column id;
+
+	@Nullable
+	private final Column logicDelete;
+
+	@Nullable
+	private final Column tenantId;
+
+	@Nullable
+	private final Column status;
+
+	@Nullable
+	private final Column parentId;
+
+	@Nullable
+	private final Column parentKey;
+
+	@Nullable
+	private final Update logicDeleteUpdate;
+
+	@Nullable
+	private final Criteria notDeletedCriteria;
+
+	EntityMetadata(RelationalPersistentEntity<?> entity) {
+		this.type = entity.getType();
+		this.table = entity.getTableName();
+		RelationalPersistentProperty idProperty = entity.getIdProperty();
+		this.id = (idProperty != null) ? new Column(idProperty.getName(), idProperty.getColumnName()) : null;
+		this.logicDelete = findColumn(entity, LogicDelete.class);
+		this.tenantId = findColumn(entity, TenantId.class);
+		this.status = findColumn(entity, Status.class);
+		this.parentId = findColumn(entity, ParentId.class);
+		this.parentKey = (this.parentId != null) ? findParentKey(entity, this.parentId, this.id) : null;
+		this.logicDeleteUpdate = (this.logicDelete != null)
+				? Update.update(this.logicDelete.property(), DeleteStatus.DELETED.getStatus()) : null;
+		this.notDeletedCriteria = (this.logicDelete != null)
+				? Criteria.where(this.logicDelete.property()).is(DeleteStatus.NORMAL.getStatus()) : null;
+	}
+
+	/**
+	 * 在实体类及其父类中查找第一个标注了指定注解的字段.
+	 */
+	@Nullable
+	private static Column findColumn(RelationalPersistentEntity<?> entity, Class<? extends Annotation> annotationType) {
+		Field[] result = new Field[1];
+		ReflectionUtils.doWithFields(entity.getType(), field -> {
+			if (result[0] == null) {
+				result[0] = field;
+			}
+		}, field -> AnnotatedElementUtils.hasAnnotation(field, annotationType));
+		if (result[0] == null) {
+			return null;
+		}
+		String name = result[0].getName();
+		RelationalPersistentProperty property = entity.getPersistentProperty(name);
+		Assert.state(property != null, () -> "@" + annotationType.getSimpleName() + " field '" + name + "' of "
+				+ entity.getType().getName() + " is not a persistent property");
+		return new Column(name, property.getColumnName());
+	}
+
+	/**
+	 * 父节点字段引用的列, 未指定时为主键.
+	 */
+	@Nullable
+	private static Column findParentKey(RelationalPersistentEntity<?> entity, Column parentId, @Nullable Column id) {
+		ParentId annotation = entity.getRequiredPersistentProperty(parentId.property()).findAnnotation(ParentId.class);
+		String references = (annotation != null) ? annotation.references() : "";
+		if (references.isEmpty()) {
+			return id;
+		}
+		RelationalPersistentProperty property = entity.getPersistentProperty(references);
+		Assert.state(property != null, () -> "@ParentId references '" + references + "' of " + entity.getType().getName()
+				+ " is not a persistent property");
+		return new Column(references, property.getColumnName());
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public SqlIdentifier getTable() {
+		return table;
+	}
+
+	public Optional<Column> getId() {
+		return Optional.ofNullable(id);
+	}
+
+	public Optional<Column> getLogicDelete() {
+		return Optional.ofNullable(logicDelete);
+	}
+
+	public Optional<Column> getTenantId() {
+		return Optional.ofNullable(tenantId);
+	}
+
+	public Optional<Column> getStatus() {
+		return Optional.ofNullable(status);
+	}
+
+	public Optional<Column> getParentId() {
+		return Optional.ofNullable(parentId);
+	}
+
+	/**
+	 * 父节点字段引用的列, 见 {@link ParentId#references()}.
+	 * @return /
+	 */
+	public Optional<Column> getParentKey() {
+		return Optional.ofNullable(parentKey);
+	}
+
+	public boolean hasLogicDelete() {
+		return logicDelete != null;
+	}
+
+	public boolean hasTenantId() {
+		return tenantId != null;
+	}
+
+	public boolean hasStatus() {
+		return status != null;
+	}
+
+	public boolean hasParentId() {
+		return parentId != null && parentKey != null;
+	}
+
+	/**
+	 * 获取逻辑删除的 {@link Update}, 即 {@code SET deleted = 0}.
+	 * @return /
+	 * @throws IllegalStateException 实体没有 {@link LogicDelete} 字段时
+	 */
+	public Update getLogicDeleteUpdate() {
+		Assert.state(logicDeleteUpdate != null, () -> "@LogicDelete annotation must not be null on " + type.getName());
+		return logicDeleteUpdate;
+	}
+
+	/**
+	 * 获取未删除数据的查询条件, 即 {@code deleted = 1}.
+	 * @return /
+	 * @throws IllegalStateException 实体没有 {@link LogicDelete} 字段时
+	 */
+	public Criteria getNotDeletedCriteria() {
+		Assert.state(notDeletedCriteria != null, () -> "@LogicDelete annotation must not be null on " + type.getName());
+		return notDeletedCriteria;
+	}
+
+	@Override
+	public String toString() {
+		return "EntityMetadata{" +
+				"type=" + type.getName() +
+				", id=" + id +
+				", logicDelete=" + logicDelete +
+				", tenantId=" + tenantId +
+				", status=" + status +
+				", parentId=" + parentId +
+				'}';
+	}
+
+	/**
+	 * 属性名与列名.
+	 * @param property 属性名, 用于 {@link Criteria} 与 {@link Update}
+	 * @param name 列名
+	 */
+	public record Column(String property, SqlIdentifier name) {
+	}
+}
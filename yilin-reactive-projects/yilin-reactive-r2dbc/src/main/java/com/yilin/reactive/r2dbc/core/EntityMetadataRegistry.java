@@ -0,0 +1,55 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 进程级实体元数据缓存. 每个实体类型只反射一次, 仓库实现、查询查找策略与查询类共享同一份 {@link EntityMetadata}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/22 10:12
+ * @since 2024.0.1
+ */
+public final class EntityMetadataRegistry {
+
+	private static final Map<Class<?>, EntityMetadata> METADATA = new ConcurrentHashMap<>();
+
+	private EntityMetadataRegistry() {
+	}
+
+	/**
+	 * 获取实体元数据, 不存在时创建.
+	 * @param entity 实体
+	 * @return /
+	 */
+	public static EntityMetadata getMetadata(RelationalPersistentEntity<?> entity) {
+		EntityMetadata metadata = METADATA.get(entity.getType());
+		return (metadata != null) ? metadata : METADATA.computeIfAbsent(entity.getType(), type -> new EntityMetadata(entity));
+	}
+
+	/**
+	 * 获取实体元数据, 不存在时创建.
+	 * @param mappingContext mappingContext
+	 * @param type 实体类型
+	 * @return /
+	 */
+	public static EntityMetadata getMetadata(
+			MappingContext<? extends RelationalPersistentEntity<?>, ? extends RelationalPersistentProperty> mappingContext,
+			Class<?> type) {
+		EntityMetadata metadata = METADATA.get(type);
+		return (metadata != null) ? metadata : getMetadata(mappingContext.getRequiredPersistentEntity(type));
+	}
+
+	/**
+	 * 清空缓存, 如测试中重新创建映射上下文后.
+	 */
+	public static void clear() {
+		METADATA.clear();
+	}
+}
@@ -0,0 +1,74 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 实体快照. 记录实体加载时各属性的值, 更新时只写入与快照不同的列.
+ * 只保存属性值的引用, 在原对象上修改的可变属性(如集合)不能被识别为变化, 数组按内容比较.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/5 10:10
+ * @since 2024.0.1
+ * @param <T> 实体类型
+ */
+public final class EntitySnapshot<T> {
+
+	private final Class<T> type;
+
+	private final Map<String, Object> values;
+
+	private EntitySnapshot(Class<T> type, Map<String, Object> values) {
+		this.type = type;
+		this.values = Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * 创建实体快照.
+	 * @param entity 实体元数据
+	 * @param object 实体
+	 * @param <T> 实体类型
+	 * @return /
+	 */
+	public static <T> EntitySnapshot<T> of(RelationalPersistentEntity<T> entity, T object) {
+		Assert.notNull(object, "Object must not be null");
+		PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(object);
+		Map<String, Object> values = new HashMap<>();
+		entity.doWithProperties((PropertyHandler<RelationalPersistentProperty>) property ->
+				values.put(property.getName(), accessor.getProperty(property)));
+		return new EntitySnapshot<>(entity.getType(), values);
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	/**
+	 * 快照中的属性值, 键为属性名.
+	 * @return /
+	 */
+	public Map<String, Object> getValues() {
+		return values;
+	}
+
+	/**
+	 * 属性值是否与快照不同. 快照中不存在的属性视为已变化.
+	 * @param property 属性名
+	 * @param value 当前值
+	 * @return /
+	 */
+	public boolean isChanged(String property, @Nullable Object value) {
+		return !this.values.containsKey(property) || !ObjectUtils.nullSafeEquals(this.values.get(property), value);
+	}
+}
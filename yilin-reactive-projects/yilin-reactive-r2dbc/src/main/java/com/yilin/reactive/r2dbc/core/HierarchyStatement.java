@@ -0,0 +1,102 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.persistent.annotations.ParentId;
+import com.yilin.reactive.persistent.enums.DeleteStatus;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 树形结构的递归查询, 使用 {@code WITH RECURSIVE}(MySQL 8, H2, PostgreSQL), 一条语句查询整棵子树或祖先链.
+ * 语句中的参数为 {@code :id} 与 {@code :tenantId}(实体存在租户字段时). 租户与逻辑删除条件作用于递归的每一层,
+ * 已逻辑删除的节点及其子树不会被查询到. 递归深度有上限, 数据中存在环时不会无限递归.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/7 9:30
+ * @since 2024.0.1
+ */
+public final class HierarchyStatement {
+
+	/**
+	 * 递归的最大深度, 查询祖先时使用该深度, 查询子孙时的深度不能超过该值.
+	 */
+	public static final int MAX_DEPTH = 64;
+
+	private static final String ALIAS = "t";
+
+	private HierarchyStatement() {
+	}
+
+	/**
+	 * 查询子孙节点, 不包括节点本身, 按深度排序.
+	 * @param strategy dataAccessStrategy
+	 * @param metadata 实体元数据, 必须包含 {@link ParentId} 字段
+	 * @param excludeDeleted 是否排除已逻辑删除的数据
+	 * @param maxDepth 最大深度, 1 为直接子节点, 不能超过 {@link #MAX_DEPTH}
+	 * @return /
+	 */
+	public static String descendants(ReactiveDataAccessStrategy strategy, EntityMetadata metadata, boolean excludeDeleted,
+			int maxDepth) {
+		return render(strategy, metadata, excludeDeleted, maxDepth, false);
+	}
+
+	/**
+	 * 查询祖先节点, 不包括节点本身, 从父节点到根节点排序.
+	 * @param strategy dataAccessStrategy
+	 * @param metadata 实体元数据, 必须包含 {@link ParentId} 字段
+	 * @param excludeDeleted 是否排除已逻辑删除的数据
+	 * @return /
+	 */
+	public static String ancestors(ReactiveDataAccessStrategy strategy, EntityMetadata metadata, boolean excludeDeleted) {
+		return render(strategy, metadata, excludeDeleted, MAX_DEPTH, true);
+	}
+
+	/**
+	 * 递归部分只保存节点的键与深度, 最后按键关联回原表查询完整的行. 查询子孙时从节点的键沿父节点字段向下,
+	 * 查询祖先时从节点的父节点字段沿键向上.
+	 */
+	private static String render(ReactiveDataAccessStrategy strategy, EntityMetadata metadata, boolean excludeDeleted,
+			int maxDepth, boolean ancestors) {
+		Assert.state(metadata.hasParentId(), () -> "@ParentId annotation must not be null on " + metadata.getType().getName());
+		Assert.isTrue(maxDepth > 0 && maxDepth <= MAX_DEPTH, () -> "MaxDepth must be between 1 and " + MAX_DEPTH);
+		String table = strategy.toSql(metadata.getTable()) + " " + ALIAS;
+		String id = column(strategy, metadata.getId().orElseThrow().name());
+		String key = column(strategy, metadata.getParentKey().orElseThrow().name());
+		String parent = column(strategy, metadata.getParentId().orElseThrow().name());
+		List<String> filters = new ArrayList<>();
+		metadata.getTenantId().ifPresent(tenant -> filters.add(column(strategy, tenant.name()) + " = :tenantId"));
+		if (excludeDeleted) {
+			metadata.getLogicDelete().ifPresent(deleted -> filters.add(column(strategy, deleted.name()) + " = "
+					+ DeleteStatus.NORMAL.getStatus()));
+		}
+		String start = ancestors ? parent : key;
+		String next = ancestors ? key : parent;
+		return "WITH RECURSIVE hierarchy (node_key, depth) AS ("
+				+ "SELECT " + start + ", 0 FROM " + table + where(filters, id + " = :id")
+				+ " UNION ALL "
+				+ "SELECT " + start + ", h.depth + 1 FROM " + table + " JOIN hierarchy h ON " + next + " = h.node_key"
+				+ where(filters, "h.depth < " + maxDepth)
+				+ ") SELECT " + ALIAS + ".* FROM " + table + " JOIN hierarchy h ON " + key + " = h.node_key"
+				+ where(filters, ancestors ? null : "h.depth > 0")
+				+ " ORDER BY h.depth";
+	}
+
+	private static String column(ReactiveDataAccessStrategy strategy, SqlIdentifier name) {
+		return ALIAS + "." + strategy.toSql(name);
+	}
+
+	private static String where(List<String> filters, @Nullable String condition) {
+		List<String> conditions = new ArrayList<>(filters);
+		if (condition != null) {
+			conditions.add(0, condition);
+		}
+		return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+	}
+}
@@ -0,0 +1,106 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.Ordered;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.lang.Nullable;
+
+import com.yilin.reactive.commons.id.SnowflakeIdGenerator;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 写入前为主键类型为 {@code Long} 且主键为空的实体(如 {@code IdDomain} 的子类)生成主键.
+ * 是否为新实体在回调之前已由 {@code isNew()} 判断, 生成主键后仍然执行 INSERT, 写入后不需要读取数据库生成的主键.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/8 9:30
+ * @since 2024.0.1
+ */
+public class IdGeneratingCallback implements BeforeConvertCallback<Object>, Ordered {
+
+	private final SnowflakeIdGenerator generator;
+
+	private final MappingContext<? extends RelationalPersistentEntity<?>, ? extends RelationalPersistentProperty> mappingContext;
+
+	public IdGeneratingCallback(SnowflakeIdGenerator generator,
+			MappingContext<? extends RelationalPersistentEntity<?>, ? extends RelationalPersistentProperty> mappingContext) {
+		this.generator = generator;
+		this.mappingContext = mappingContext;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Publisher<Object> onBeforeConvert(Object entity, SqlIdentifier table) {
+		RelationalPersistentEntity<Object> persistentEntity =
+				(RelationalPersistentEntity<Object>) this.mappingContext.getPersistentEntity(entity.getClass());
+		if (persistentEntity == null) {
+			return Mono.just(entity);
+		}
+		return Mono.just(assignIds(persistentEntity, List.of(entity), this.generator).get(0));
+	}
+
+	/**
+	 * 为主键为空的实体生成主键, 一次预留所需数量的 ID.
+	 * @param entity 实体元数据
+	 * @param objects 实体
+	 * @param generator ID 生成器
+	 * @param <T> 实体类型
+	 * @return 设置主键后的实体, 不可变实体为新的实例
+	 */
+	public static <T> List<T> assignIds(RelationalPersistentEntity<T> entity, List<T> objects,
+			SnowflakeIdGenerator generator) {
+		RelationalPersistentProperty idProperty = getGeneratedIdProperty(entity);
+		if (idProperty == null) {
+			return objects;
+		}
+		List<PersistentPropertyAccessor<T>> accessors = new ArrayList<>();
+		for (T object : objects) {
+			PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(object);
+			Object id = accessor.getProperty(idProperty);
+			accessors.add((id == null || (idProperty.getType() == long.class && (long) id == 0L)) ? accessor : null);
+		}
+		int count = (int) accessors.stream().filter(Objects::nonNull).count();
+		if (count == 0) {
+			return objects;
+		}
+		long[] ids = generator.nextIds(count);
+		List<T> result = new ArrayList<>(objects.size());
+		int next = 0;
+		for (int i = 0; i < objects.size(); i++) {
+			PersistentPropertyAccessor<T> accessor = accessors.get(i);
+			if (accessor == null) {
+				result.add(objects.get(i));
+				continue;
+			}
+			accessor.setProperty(idProperty, ids[next++]);
+			result.add(accessor.getBean());
+		}
+		return result;
+	}
+
+	@Nullable
+	private static RelationalPersistentProperty getGeneratedIdProperty(RelationalPersistentEntity<?> entity) {
+		RelationalPersistentProperty idProperty = entity.getIdProperty();
+		if (idProperty == null || (idProperty.getType() != Long.class && idProperty.getType() != long.class)) {
+			return null;
+		}
+		return idProperty;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+}
@@ -0,0 +1,188 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 预解析的命名 SQL. 加载时把 {@code :name} 形式的参数替换为方言的绑定标记并记录参数顺序,
+ * 执行时按位置绑定, 不再解析 SQL. 同名参数出现多次时每次出现都单独绑定, 集合参数不会展开.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/4 9:30
+ * @since 2024.0.1
+ */
+public final class NamedSql {
+
+	private final String name;
+
+	private final String sql;
+
+	private final List<String> parameters;
+
+	private final List<BindMarker> markers;
+
+	private NamedSql(String name, String sql, List<String> parameters, List<BindMarker> markers) {
+		this.name = name;
+		this.sql = sql;
+		this.parameters = parameters;
+		this.markers = markers;
+	}
+
+	/**
+	 * 解析 SQL, 跳过字符串、引用标识符、注释与 {@code ::} 类型转换中的冒号.
+	 * @param name 名称
+	 * @param source SQL
+	 * @param markersFactory 方言的绑定标记
+	 * @return /
+	 */
+	public static NamedSql parse(String name, String source, BindMarkersFactory markersFactory) {
+		BindMarkers bindMarkers = markersFactory.create();
+		StringBuilder sql = new StringBuilder(source.length());
+		List<String> parameters = new ArrayList<>();
+		List<BindMarker> markers = new ArrayList<>();
+		int length = source.length();
+		int i = 0;
+		while (i < length) {
+			char c = source.charAt(i);
+			if (c == '\'' || c == '"' || c == '`') {
+				int end = source.indexOf(c, i + 1);
+				end = (end < 0) ? length : end + 1;
+				sql.append(source, i, end);
+				i = end;
+			}
+			else if (c == '-' && i + 1 < length && source.charAt(i + 1) == '-') {
+				int end = source.indexOf('\n', i);
+				end = (end < 0) ? length : end;
+				sql.append(source, i, end);
+				i = end;
+			}
+			else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+				int end = source.indexOf("*/", i + 2);
+				end = (end < 0) ? length : end + 2;
+				sql.append(source, i, end);
+				i = end;
+			}
+			else if (c == ':' && i + 1 < length && source.charAt(i + 1) == ':') {
+				sql.append("::");
+				i += 2;
+			}
+			else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(source.charAt(i + 1))) {
+				int end = i + 1;
+				while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+					end++;
+				}
+				BindMarker marker = bindMarkers.next();
+				parameters.add(source.substring(i + 1, end));
+				markers.add(marker);
+				sql.append(marker.getPlaceholder());
+				i = end;
+			}
+			else {
+				sql.append(c);
+				i++;
+			}
+		}
+		return new NamedSql(name, sql.toString().trim(), List.copyOf(parameters), List.copyOf(markers));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * 按出现顺序排列的参数名.
+	 * @return /
+	 */
+	public List<String> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * 按参数名绑定, 值可以是 {@link Parameter} 以指定 {@literal null} 值的类型.
+	 * @param values 参数
+	 * @return /
+	 */
+	public PreparedOperation<String> bind(Map<String, ?> values) {
+		Parameter[] bound = new Parameter[this.parameters.size()];
+		for (int i = 0; i < bound.length; i++) {
+			String parameter = this.parameters.get(i);
+			if (!values.containsKey(parameter)) {
+				throw new InvalidDataAccessApiUsageException(
+						String.format("No value supplied for parameter '%s' of named SQL '%s'", parameter, this.name));
+			}
+			bound[i] = toParameter(values.get(parameter));
+		}
+		return new BoundOperation(this, bound);
+	}
+
+	/**
+	 * 按位置绑定, 值的顺序与 {@link #getParameters()} 一致.
+	 * @param values 参数
+	 * @return /
+	 */
+	public PreparedOperation<String> bind(Object... values) {
+		if (values.length != this.parameters.size()) {
+			throw new InvalidDataAccessApiUsageException(String.format("Named SQL '%s' expects %d parameters but got %d",
+					this.name, this.parameters.size(), values.length));
+		}
+		Parameter[] bound = new Parameter[values.length];
+		for (int i = 0; i < bound.length; i++) {
+			bound[i] = toParameter(values[i]);
+		}
+		return new BoundOperation(this, bound);
+	}
+
+	private static Parameter toParameter(Object value) {
+		if (value instanceof Parameter parameter) {
+			return parameter;
+		}
+		return Parameter.fromOrEmpty(value, (value != null) ? value.getClass() : Object.class);
+	}
+
+	@Override
+	public String toString() {
+		return this.name + ": " + this.sql;
+	}
+
+	private record BoundOperation(NamedSql namedSql, Parameter[] values) implements PreparedOperation<String> {
+
+		@Override
+		public String getSource() {
+			return this.namedSql.sql;
+		}
+
+		@Override
+		public void bindTo(BindTarget target) {
+			for (int i = 0; i < this.values.length; i++) {
+				BindMarker marker = this.namedSql.markers.get(i);
+				Parameter value = this.values[i];
+				if (value.hasValue()) {
+					marker.bind(target, value.getValue());
+				}
+				else {
+					marker.bindNull(target, value.getType());
+				}
+			}
+		}
+
+		@Override
+		public String toQuery() {
+			return this.namedSql.sql;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+
+import com.yilin.reactive.utils.classpath.ClassPathResource;
+import com.yilin.reactive.utils.classpath.ClassPathUtils;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 命名 SQL 注册表. 启动时从类路径加载 {@code *.sql} 文件并预解析绑定标记.
+ * 文件中包含 {@code -- name: xxx} 行时, 每行之后到下一个 {@code -- name:} 之前的内容为一条名为 {@code xxx} 的 SQL,
+ * 否则整个文件为一条 SQL, 名称为去掉扩展名的相对路径, 目录以 {@code .} 分隔, 如 {@code sql/sys/log.sql} 为 {@code sys.log}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/4 9:30
+ * @since 2024.0.1
+ */
+public class NamedSqlRegistry {
+
+	private static final Logger logger = LoggerFactory.getLogger(NamedSqlRegistry.class);
+
+	private static final Pattern NAME = Pattern.compile("^--\\s*name:\\s*(\\S+)\\s*$", Pattern.MULTILINE);
+
+	private static final String EXTENSION = ".sql";
+
+	private final Map<String, NamedSql> statements;
+
+	private NamedSqlRegistry(Map<String, NamedSql> statements) {
+		this.statements = Collections.unmodifiableMap(statements);
+	}
+
+	/**
+	 * 从类路径加载.
+	 * @param location 类路径中的目录, 如 {@code sql}
+	 * @param markersFactory 方言的绑定标记
+	 * @return /
+	 */
+	public static NamedSqlRegistry load(String location, BindMarkersFactory markersFactory) {
+		Map<String, NamedSql> statements = new LinkedHashMap<>();
+		for (ClassPathResource resource : ClassPathUtils.findClassPathResource(location)) {
+			String path = resource.getRelativePath().replace('\\', '/');
+			if (path.endsWith(EXTENSION)) {
+				register(statements, path.substring(0, path.length() - EXTENSION.length()).replace('/', '.'),
+						read(resource), markersFactory);
+			}
+		}
+		logger.info("Loaded {} named SQL statements from classpath:{}", statements.size(), location);
+		return new NamedSqlRegistry(statements);
+	}
+
+	/**
+	 * 从内存中的 SQL 创建, 格式与单个 {@code *.sql} 文件相同.
+	 * @param name 不包含 {@code -- name:} 行时使用的名称
+	 * @param source SQL
+	 * @param markersFactory 方言的绑定标记
+	 * @return /
+	 */
+	public static NamedSqlRegistry of(String name, String source, BindMarkersFactory markersFactory) {
+		Map<String, NamedSql> statements = new LinkedHashMap<>();
+		register(statements, name, source, markersFactory);
+		return new NamedSqlRegistry(statements);
+	}
+
+	private static void register(Map<String, NamedSql> statements, String defaultName, String source,
+			BindMarkersFactory markersFactory) {
+		Matcher matcher = NAME.matcher(source);
+		if (!matcher.find()) {
+			put(statements, NamedSql.parse(defaultName, source, markersFactory));
+			return;
+		}
+		while (true) {
+			String name = matcher.group(1);
+			int start = matcher.end();
+			boolean hasNext = matcher.find();
+			int end = hasNext ? matcher.start() : source.length();
+			put(statements, NamedSql.parse(name, source.substring(start, end), markersFactory));
+			if (!hasNext) {
+				return;
+			}
+		}
+	}
+
+	private static void put(Map<String, NamedSql> statements, NamedSql statement) {
+		NamedSql existing = statements.putIfAbsent(statement.getName(), statement);
+		Assert.state(existing == null, () -> "Duplicate named SQL '" + statement.getName() + "'");
+	}
+
+	private static String read(ClassPathResource resource) {
+		try (Reader reader = resource.read()) {
+			return FileCopyUtils.copyToString(reader);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Unable to read " + resource.getAbsolutePath(), ex);
+		}
+	}
+
+	/**
+	 * 获取命名 SQL.
+	 * @param name 名称
+	 * @return /
+	 * @throws InvalidDataAccessApiUsageException 不存在时
+	 */
+	public NamedSql get(String name) {
+		NamedSql statement = this.statements.get(name);
+		if (statement == null) {
+			throw new InvalidDataAccessApiUsageException("No named SQL '" + name + "'");
+		}
+		return statement;
+	}
+
+	public boolean contains(String name) {
+		return this.statements.containsKey(name);
+	}
+
+	public Map<String, NamedSql> getStatements() {
+		return statements;
+	}
+}
@@ -0,0 +1,31 @@
+package com.yilin.reactive.r2dbc.core;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 响应式事务工具.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/1 9:20
+ * @since 2024.0.1
+ */
+public final class ReactiveTransactions {
+
+	private ReactiveTransactions() {
+	}
+
+	/**
+	 * 当前订阅是否处于实际的事务中, 没有事务上下文时为 {@literal false}.
+	 * @return /
+	 */
+	public static Mono<Boolean> isActualTransactionActive() {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.map(TransactionSynchronizationManager::isActualTransactionActive)
+				.onErrorResume(NoTransactionException.class, ex -> Mono.just(Boolean.FALSE));
+	}
+}
@@ -0,0 +1,140 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.lang.Nullable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 游标分页的游标编解码. 游标由排序指纹与上一页最后一行的排序键值组成, 对调用方不透明.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/19 10:20
+ * @since 2024.0.1
+ */
+public final class SeekCursor {
+
+	private static final char SEPARATOR = '|';
+
+	private static final String NULL_VALUE = "-";
+
+	private SeekCursor() {
+	}
+
+	/**
+	 * 编码游标.
+	 * @param fingerprint 排序指纹, 用于拒绝与当前排序不一致的游标
+	 * @param values 排序键值
+	 * @return 游标
+	 */
+	public static String encode(String fingerprint, List<?> values) {
+		StringBuilder builder = new StringBuilder(fingerprint);
+		for (Object value : values) {
+			builder.append(SEPARATOR);
+			if (value == null) {
+				builder.append(NULL_VALUE);
+			}
+			else {
+				String text = toText(value);
+				builder.append(text.length()).append(':').append(text);
+			}
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * 解码游标.
+	 * @param fingerprint 排序指纹
+	 * @param cursor 游标
+	 * @param types 排序键类型
+	 * @param conversionService 类型转换
+	 * @return 排序键值
+	 */
+	public static List<Object> decode(String fingerprint, String cursor, List<Class<?>> types, ConversionService conversionService) {
+		String text;
+		try {
+			text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new IllegalArgumentException("Invalid seek cursor: " + cursor, ex);
+		}
+		if (!text.startsWith(fingerprint + SEPARATOR)) {
+			throw new IllegalArgumentException("Seek cursor does not match the requested sort: " + cursor);
+		}
+		List<Object> values = new ArrayList<>(types.size());
+		int position = fingerprint.length();
+		for (Class<?> type : types) {
+			if (position >= text.length() || text.charAt(position) != SEPARATOR) {
+				throw new IllegalArgumentException("Invalid seek cursor: " + cursor);
+			}
+			position++;
+			if (text.startsWith(NULL_VALUE, position)) {
+				values.add(null);
+				position += NULL_VALUE.length();
+				continue;
+			}
+			int colon = text.indexOf(':', position);
+			if (colon < 0) {
+				throw new IllegalArgumentException("Invalid seek cursor: " + cursor);
+			}
+			int length = Integer.parseInt(text.substring(position, colon));
+			position = colon + 1 + length;
+			values.add(fromText(text.substring(colon + 1, position), type, conversionService));
+		}
+		if (position != text.length()) {
+			throw new IllegalArgumentException("Invalid seek cursor: " + cursor);
+		}
+		return values;
+	}
+
+	private static String toText(Object value) {
+		if (value instanceof Date date) {
+			return String.valueOf(date.getTime());
+		}
+		if (value instanceof Enum<?> constant) {
+			return constant.name();
+		}
+		return value.toString();
+	}
+
+	@Nullable
+	private static Object fromText(String text, Class<?> type, ConversionService conversionService) {
+		if (String.class.equals(type)) {
+			return text;
+		}
+		if (Instant.class.equals(type)) {
+			return Instant.parse(text);
+		}
+		if (LocalDateTime.class.equals(type)) {
+			return LocalDateTime.parse(text);
+		}
+		if (LocalDate.class.equals(type)) {
+			return LocalDate.parse(text);
+		}
+		if (LocalTime.class.equals(type)) {
+			return LocalTime.parse(text);
+		}
+		if (OffsetDateTime.class.equals(type)) {
+			return OffsetDateTime.parse(text);
+		}
+		if (ZonedDateTime.class.equals(type)) {
+			return ZonedDateTime.parse(text);
+		}
+		if (Date.class.isAssignableFrom(type)) {
+			return new Date(Long.parseLong(text));
+		}
+		return conversionService.convert(text, type);
+	}
+}
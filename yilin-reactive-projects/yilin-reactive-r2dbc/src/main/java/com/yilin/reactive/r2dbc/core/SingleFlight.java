@@ -0,0 +1,128 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import org.springframework.util.Assert;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 合并并发的相同读请求. 同一个 key 在执行中时, 后到的订阅者共享已有的执行, 执行结束后立即移除,
+ * 不缓存结果. 事务中的请求可能读到未提交的数据, 不参与合并.
+ * <p>共享的结果是同一个实例, 结果可变(如实体)时应通过 {@code copier} 为每个订阅者复制, 避免一个调用方的修改影响其他调用方.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/29 9:50
+ * @since 2024.0.1
+ */
+public class SingleFlight {
+
+	/**
+	 * 默认的 {@link Flux} 最大共享元素数.
+	 */
+	public static final int DEFAULT_MAX_REPLAY = 1000;
+
+	private final Map<Object, Object> inFlight = new ConcurrentHashMap<>();
+
+	private final int maxReplay;
+
+	public SingleFlight() {
+		this(DEFAULT_MAX_REPLAY);
+	}
+
+	/**
+	 * 创建请求合并.
+	 * @param maxReplay {@link Flux} 请求保留的最大元素数, 为 0 时只合并 {@link Mono} 请求
+	 */
+	public SingleFlight(int maxReplay) {
+		Assert.isTrue(maxReplay >= 0, "MaxReplay must not be negative");
+		this.maxReplay = maxReplay;
+	}
+
+	/**
+	 * 执行或加入执行中的 {@link Mono}.
+	 * @param key 请求的唯一标识, 需要包含租户等所有影响结果的条件
+	 * @param source 未合并时执行的请求
+	 * @param <R> 结果类型
+	 * @return /
+	 */
+	public <R> Mono<R> mono(Object key, Supplier<Mono<R>> source) {
+		return mono(key, source, UnaryOperator.identity());
+	}
+
+	/**
+	 * 执行或加入执行中的 {@link Mono}, 共享的结果经 copier 复制后发给每个订阅者.
+	 * @param key 请求的唯一标识, 需要包含租户等所有影响结果的条件
+	 * @param source 未合并时执行的请求
+	 * @param copier 复制共享的结果
+	 * @param <R> 结果类型
+	 * @return /
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> Mono<R> mono(Object key, Supplier<Mono<R>> source, UnaryOperator<R> copier) {
+		return ReactiveTransactions.isActualTransactionActive().flatMap(active -> active ? source.get()
+				: Mono.defer(() -> (Mono<R>) this.inFlight.computeIfAbsent(key, k -> {
+					AtomicReference<Object> shared = new AtomicReference<>();
+					shared.set(source.get().doFinally(signal -> this.inFlight.remove(k, shared.get())).share());
+					return shared.get();
+				})).map(copier));
+	}
+
+	/**
+	 * 执行或加入执行中的 {@link Flux}, 后加入的订阅者会收到已发出的元素. 执行期间最多保留 maxReplay 个元素,
+	 * 发出的元素超过 maxReplay 后不再接受新的订阅者, 之后的相同请求单独执行.
+	 * @param key 请求的唯一标识, 需要包含租户等所有影响结果的条件
+	 * @param source 未合并时执行的请求
+	 * @param <R> 元素类型
+	 * @return /
+	 */
+	public <R> Flux<R> flux(Object key, Supplier<Flux<R>> source) {
+		return flux(key, source, UnaryOperator.identity());
+	}
+
+	/**
+	 * 执行或加入执行中的 {@link Flux}, 共享的元素经 copier 复制后发给每个订阅者, 单独执行的请求不复制.
+	 * @param key 请求的唯一标识, 需要包含租户等所有影响结果的条件
+	 * @param source 未合并时执行的请求
+	 * @param copier 复制共享的元素
+	 * @param <R> 元素类型
+	 * @return /
+	 * @see #flux(Object, Supplier)
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> Flux<R> flux(Object key, Supplier<Flux<R>> source, UnaryOperator<R> copier) {
+		if (this.maxReplay == 0) {
+			return source.get();
+		}
+		return ReactiveTransactions.isActualTransactionActive().flatMapMany(active -> active ? source.get()
+				: Flux.defer(() -> ((Flux<Tuple2<Long, R>>) this.inFlight.computeIfAbsent(key, k -> {
+					AtomicReference<Object> shared = new AtomicReference<>();
+					shared.set(source.get().index()
+							.doOnNext(indexed -> {
+								if (indexed.getT1() == this.maxReplay) {
+									this.inFlight.remove(k, shared.get());
+								}
+							})
+							.doFinally(signal -> this.inFlight.remove(k, shared.get()))
+							.replay(this.maxReplay).refCount());
+					return shared.get();
+				})).switchOnFirst((first, indexed) -> (first.hasValue() && first.get().getT1() != 0) ? source.get()
+						: indexed.map(element -> copier.apply(element.getT2())))));
+	}
+
+	/**
+	 * 执行中的请求数.
+	 * @return /
+	 */
+	public int size() {
+		return this.inFlight.size();
+	}
+}
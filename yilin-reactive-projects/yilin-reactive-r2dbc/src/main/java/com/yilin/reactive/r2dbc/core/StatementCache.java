@@ -0,0 +1,368 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 语句模板缓存. 以查询结构(列、比较符、组合方式、排序、分页)而不是绑定值为键,
+ * 缓存渲染后的 SQL 与绑定标记顺序, 结构相同的查询只重新绑定参数, 不再渲染 SQL.
+ * 首次渲染时校验绑定顺序与条件中的值一致, 不一致的结构不缓存. 超出容量时按 LRU 淘汰.
+ * <p>条件值与 {@link org.springframework.data.r2dbc.query.QueryMapper} 一样按实体属性的类型转换,
+ * 如 {@code Long} 主键的条件值 {@code "1"} 绑定为 {@code 1L}, 不按值本身的类型绑定.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/26 9:40
+ * @since 2024.0.1
+ */
+public class StatementCache {
+
+	private static final Template UNCACHEABLE = new Template("", List.of());
+
+	private final Map<String, Template> templates;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder bypasses = new LongAdder();
+
+	/**
+	 * 创建语句模板缓存, 超出容量时淘汰最久未访问的模板.
+	 * @param maximumSize 最大模板数
+	 */
+	public StatementCache(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "MaximumSize must be greater than 0");
+		this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * 获取绑定了当前条件值的语句, 未命中时调用 renderer 渲染并缓存.
+	 * @param key 查询结构, 见 {@link #shapeOf(CriteriaDefinition)}
+	 * @param criteria 查询条件
+	 * @param strategy 用于转换条件值
+	 * @param entity 条件所属的实体, 条件值按同名属性的类型转换, 为空时按值本身的类型转换
+	 * @param renderer 渲染语句
+	 * @return /
+	 */
+	public PreparedOperation<?> get(String key, @Nullable CriteriaDefinition criteria, ReactiveDataAccessStrategy strategy,
+			@Nullable RelationalPersistentEntity<?> entity, Supplier<PreparedOperation<?>> renderer) {
+		Template template;
+		synchronized (this.templates) {
+			template = this.templates.get(key);
+		}
+		if (template == UNCACHEABLE) {
+			this.bypasses.increment();
+			return renderer.get();
+		}
+		if (template != null) {
+			this.hits.increment();
+			return template.bind(values(criteria, strategy.getConverter(), entity));
+		}
+		this.misses.increment();
+		PreparedOperation<?> operation = renderer.get();
+		template = Template.of(operation, values(criteria, strategy.getConverter(), entity));
+		synchronized (this.templates) {
+			this.templates.put(key, template);
+		}
+		return operation;
+	}
+
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * 结构已知但不能缓存而每次重新渲染的次数, 不计入命中与未命中.
+	 * @return /
+	 */
+	public long getBypassCount() {
+		return this.bypasses.sum();
+	}
+
+	/**
+	 * 命中率, 没有请求时为 0. 不能缓存的结构重新渲染, 计为未命中.
+	 * @return /
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount() + getBypassCount();
+		return (total != 0) ? (double) hits / total : 0;
+	}
+
+	public int size() {
+		synchronized (this.templates) {
+			return this.templates.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (this.templates) {
+			this.templates.clear();
+		}
+	}
+
+	/**
+	 * 条件的结构: 列、比较符、组合方式与值的个数, 不包含值本身.
+	 * @param criteria 条件
+	 * @return /
+	 */
+	public static String shapeOf(@Nullable CriteriaDefinition criteria) {
+		StringBuilder shape = new StringBuilder();
+		if (criteria != null) {
+			appendShape(shape, criteria);
+		}
+		return shape.toString();
+	}
+
+	private static void appendShape(StringBuilder shape, CriteriaDefinition criteria) {
+		for (CriteriaDefinition node : unroll(criteria)) {
+			shape.append(node.getCombinator()).append(' ');
+			if (node.isGroup()) {
+				shape.append('(');
+				for (CriteriaDefinition member : node.getGroup()) {
+					appendShape(shape, member);
+				}
+				shape.append(')');
+			}
+			else if (node.getColumn() != null) {
+				shape.append(node.getColumn()).append(' ').append(node.getComparator());
+				if (node.isIgnoreCase()) {
+					shape.append(" IC");
+				}
+				Object value = node.getValue();
+				if (value instanceof Collection<?> collection) {
+					shape.append(" [").append(collection.size()).append(']');
+				}
+				else if (value == null) {
+					shape.append(" null");
+				}
+			}
+			shape.append(';');
+		}
+	}
+
+	/**
+	 * 按渲染顺序收集条件中的值, 与 {@link org.springframework.data.r2dbc.core.StatementMapper} 分配绑定标记的顺序一致.
+	 */
+	private static List<Parameter> values(@Nullable CriteriaDefinition criteria, R2dbcConverter converter,
+			@Nullable RelationalPersistentEntity<?> entity) {
+		List<Parameter> values = new ArrayList<>();
+		if (criteria != null) {
+			collect(criteria, converter, entity, values);
+		}
+		return values;
+	}
+
+	private static void collect(CriteriaDefinition criteria, R2dbcConverter converter,
+			@Nullable RelationalPersistentEntity<?> entity, List<Parameter> values) {
+		for (CriteriaDefinition node : unroll(criteria)) {
+			if (node.isGroup()) {
+				for (CriteriaDefinition member : node.getGroup()) {
+					collect(member, converter, entity, values);
+				}
+				continue;
+			}
+			if (node.getColumn() == null) {
+				continue;
+			}
+			TypeInformation<?> typeHint = getTypeHint(
+					(entity != null) ? entity.getPersistentProperty(node.getColumn().getReference()) : null);
+			switch (node.getComparator()) {
+				case IS_NULL, IS_NOT_NULL, IS_TRUE, IS_FALSE -> {
+				}
+				case BETWEEN, NOT_BETWEEN -> {
+					Pair<?, ?> pair = (Pair<?, ?>) node.getValue();
+					values.add(convert(pair.getFirst(), typeHint, converter));
+					values.add(convert(pair.getSecond(), typeHint, converter));
+				}
+				default -> {
+					if (node.getValue() instanceof Collection<?> collection) {
+						TypeInformation<?> elementHint = typeHint.getRequiredActualType();
+						collection.forEach(value -> values.add(convert(value, elementHint, converter)));
+					}
+					else {
+						values.add(convert(node.getValue(), typeHint, converter));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 与 {@code QueryMapper} 一致: 未知属性、接口与抽象类型按值本身的类型转换, 基本类型使用包装类型.
+	 */
+	private static TypeInformation<?> getTypeHint(@Nullable RelationalPersistentProperty property) {
+		if (property == null) {
+			return TypeInformation.OBJECT;
+		}
+		Class<?> type = property.getType();
+		if (type.isPrimitive()) {
+			return TypeInformation.of(ClassUtils.resolvePrimitiveIfNecessary(type));
+		}
+		if (!type.isArray() && (type.isInterface() || Modifier.isAbstract(type.getModifiers()))) {
+			return TypeInformation.OBJECT;
+		}
+		return property.getTypeInformation();
+	}
+
+	private static Parameter convert(@Nullable Object value, TypeInformation<?> typeHint, R2dbcConverter converter) {
+		if (value instanceof Parameter parameter) {
+			return parameter.hasValue() ? Parameter.from(write(parameter.getValue(), typeHint, converter))
+					: Parameter.empty(parameter.getType());
+		}
+		return (value != null) ? Parameter.from(write(value, typeHint, converter)) : Parameter.empty(typeHint.getType());
+	}
+
+	private static Object write(Object value, TypeInformation<?> typeHint, R2dbcConverter converter) {
+		if (value.getClass().isArray() && (TypeInformation.OBJECT.equals(typeHint) || typeHint.isCollectionLike())) {
+			return value;
+		}
+		Object converted = converter.writeValue(value, typeHint);
+		return (converted != null) ? converted : value;
+	}
+
+	private static List<CriteriaDefinition> unroll(CriteriaDefinition criteria) {
+		Deque<CriteriaDefinition> nodes = new ArrayDeque<>();
+		CriteriaDefinition current = criteria;
+		while (current != null) {
+			nodes.push(current);
+			current = current.getPrevious();
+		}
+		return new ArrayList<>(nodes);
+	}
+
+	/**
+	 * 渲染后的 SQL 与绑定标记, 绑定标记按条件值的顺序排列.
+	 */
+	private record Template(String sql, List<Object> markers) {
+
+		/**
+		 * 记录语句的绑定顺序, 与条件值逐一比较, 不一致时返回 {@link #UNCACHEABLE}.
+		 */
+		static Template of(PreparedOperation<?> operation, List<Parameter> values) {
+			RecordingBindTarget target = new RecordingBindTarget();
+			operation.bindTo(target);
+			if (target.markers.size() != values.size()) {
+				return UNCACHEABLE;
+			}
+			for (int i = 0; i < values.size(); i++) {
+				Parameter value = values.get(i);
+				if (!Objects.equals(target.values.get(i), value.getValue())) {
+					return UNCACHEABLE;
+				}
+			}
+			return new Template(operation.toQuery(), List.copyOf(target.markers));
+		}
+
+		PreparedOperation<String> bind(List<Parameter> values) {
+			if (values.size() != this.markers.size()) {
+				throw new IllegalStateException("Expected " + this.markers.size() + " bind values but got " + values.size());
+			}
+			return new BoundOperation(this, values);
+		}
+	}
+
+	private record BoundOperation(Template template, List<Parameter> values) implements PreparedOperation<String> {
+
+		@Override
+		public String getSource() {
+			return this.template.sql();
+		}
+
+		@Override
+		public void bindTo(BindTarget target) {
+			for (int i = 0; i < this.values.size(); i++) {
+				Object marker = this.template.markers().get(i);
+				Parameter value = this.values.get(i);
+				if (marker instanceof Integer index) {
+					if (value.hasValue()) {
+						target.bind(index, value.getValue());
+					}
+					else {
+						target.bindNull(index, value.getType());
+					}
+				}
+				else if (value.hasValue()) {
+					target.bind((String) marker, value.getValue());
+				}
+				else {
+					target.bindNull((String) marker, value.getType());
+				}
+			}
+		}
+
+		@Override
+		public String toQuery() {
+			return this.template.sql();
+		}
+	}
+
+	/**
+	 * 记录绑定标记(下标或名称)与值的顺序.
+	 */
+	private static final class RecordingBindTarget implements BindTarget {
+
+		private final List<Object> markers = new ArrayList<>();
+
+		private final List<Object> values = new ArrayList<>();
+
+		@Override
+		public void bind(String identifier, Object value) {
+			this.markers.add(identifier);
+			this.values.add(value);
+		}
+
+		@Override
+		public void bind(int index, Object value) {
+			this.markers.add(index);
+			this.values.add(value);
+		}
+
+		@Override
+		public void bindNull(String identifier, Class<?> type) {
+			this.markers.add(identifier);
+			this.values.add(null);
+		}
+
+		@Override
+		public void bindNull(int index, Class<?> type) {
+			this.markers.add(index);
+			this.values.add(null);
+		}
+	}
+}
@@ -1,9 +1,13 @@
 package com.yilin.reactive.r2dbc.core;
 
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
 /**
  * Copyright: Copyright (c) 2022 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
  *
- * <p> Description:
+ * <p> Description: 租户上下文. 响应式调用链中的租户从 Reactor {@link Context} 中读取, 而不是线程变量,
+ * 如 {@code repository.findAll().contextWrite(TenantContext.withTenantId("000001"))}.
  *
  * @author jcohy
  * @version 2024.0.1 2023/8/17 23:25
@@ -11,9 +15,30 @@ package com.yilin.reactive.r2dbc.core;
  */
 public interface TenantContext {
 
-    String getCurrentTenantId();
+	/**
+	 * 租户 ID 在 Reactor {@link Context} 中的键.
+	 */
+	String TENANT_ID_KEY = TenantContext.class.getName() + ".TENANT_ID";
+
+	/**
+	 * 默认租户 ID.
+	 */
+	String DEFAULT_TENANT_ID = "000000";
+
+	/**
+	 * 创建包含租户 ID 的 {@link Context}, 用于 {@code contextWrite}.
+	 * @param tenantId 租户 ID
+	 * @return /
+	 */
+	static Context withTenantId(String tenantId) {
+		return Context.of(TENANT_ID_KEY, tenantId);
+	}
 
-    default String defaultGetCurrentTenantId() {
-        return "000000";
-    }
+	/**
+	 * 从 Reactor {@link Context} 中读取当前租户 ID, 不存在时为空.
+	 * @return /
+	 */
+	static Mono<String> getTenantId() {
+		return Mono.deferContextual(context -> Mono.justOrEmpty(context.<String>getOrEmpty(TENANT_ID_KEY)));
+	}
 }
@@ -0,0 +1,114 @@
+package com.yilin.reactive.r2dbc.repository;
+
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 分组聚合查询, 由 {@link YiLinR2dbcRepository#aggregate(org.springframework.data.relational.core.query.Criteria)}
+ * 创建, 如 {@code aggregate(criteria).groupBy("category").sum("orders").all()}. 不可变, 每次调用返回新的实例.
+ * 未指定别名时聚合结果的名称为 {@code 函数_属性}, 如 {@code sum_orders}, {@code count()} 为 {@code count}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/11 9:30
+ * @since 2024.0.1
+ */
+public interface AggregateSpec {
+
+	/**
+	 * 追加分组属性.
+	 * @param properties 实体属性名
+	 * @return /
+	 */
+	AggregateSpec groupBy(String... properties);
+
+	/**
+	 * {@code COUNT(*)}.
+	 * @return /
+	 */
+	AggregateSpec count();
+
+	/**
+	 * {@code COUNT(*)}.
+	 * @param alias 结果名称
+	 * @return /
+	 */
+	AggregateSpec countAs(String alias);
+
+	/**
+	 * {@code SUM(property)}.
+	 * @param property 实体属性名
+	 * @return /
+	 */
+	AggregateSpec sum(String property);
+
+	/**
+	 * {@code SUM(property)}.
+	 * @param property 实体属性名
+	 * @param alias 结果名称
+	 * @return /
+	 */
+	AggregateSpec sum(String property, String alias);
+
+	/**
+	 * {@code AVG(property)}.
+	 * @param property 实体属性名
+	 * @return /
+	 */
+	AggregateSpec avg(String property);
+
+	/**
+	 * {@code AVG(property)}.
+	 * @param property 实体属性名
+	 * @param alias 结果名称
+	 * @return /
+	 */
+	AggregateSpec avg(String property, String alias);
+
+	/**
+	 * {@code MIN(property)}.
+	 * @param property 实体属性名
+	 * @return /
+	 */
+	AggregateSpec min(String property);
+
+	/**
+	 * {@code MIN(property)}.
+	 * @param property 实体属性名
+	 * @param alias 结果名称
+	 * @return /
+	 */
+	AggregateSpec min(String property, String alias);
+
+	/**
+	 * {@code MAX(property)}.
+	 * @param property 实体属性名
+	 * @return /
+	 */
+	AggregateSpec max(String property);
+
+	/**
+	 * {@code MAX(property)}.
+	 * @param property 实体属性名
+	 * @param alias 结果名称
+	 * @return /
+	 */
+	AggregateSpec max(String property, String alias);
+
+	/**
+	 * 执行查询, 每行结果为一个 {@link Map}, 键依次为分组属性名与聚合结果名称.
+	 * @return /
+	 */
+	Flux<Map<String, Object>> all();
+
+	/**
+	 * 执行查询, 由转换器将每行结果读取为指定类型, 如 record. 结果类型的属性按命名策略对应分组属性的列名与聚合结果名称,
+	 * 如 {@code sum_orders} 对应属性 {@code sumOrders}.
+	 * @param resultType 结果类型
+	 * @param <R> 结果类型
+	 * @return /
+	 */
+	<R> Flux<R> as(Class<R> resultType);
+}
@@ -0,0 +1,56 @@
+package com.yilin.reactive.r2dbc.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 按主键列表查询的结果, 数据按主键的输入顺序排列, 同时给出未查询到的主键.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/12 10:20
+ * @since 2024.0.1
+ */
+public class OrderedResult<ID, T> {
+
+	private final List<T> content;
+
+	private final List<ID> missingIds;
+
+	public OrderedResult(List<T> content, List<ID> missingIds) {
+		this.content = Collections.unmodifiableList(content);
+		this.missingIds = Collections.unmodifiableList(missingIds);
+	}
+
+	/**
+	 * 查询到的数据, 按主键的输入顺序排列, 输入中重复的主键对应同一个实体.
+	 * @return /
+	 */
+	public List<T> getContent() {
+		return content;
+	}
+
+	/**
+	 * 未查询到的主键, 按输入顺序排列. 不存在、已逻辑删除或不属于当前租户的数据都不会被查询到.
+	 * @return /
+	 */
+	public List<ID> getMissingIds() {
+		return missingIds;
+	}
+
+	/**
+	 * @return 返回 {@literal true}, 则存在未查询到的主键.
+	 */
+	public boolean hasMissing() {
+		return !missingIds.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "OrderedResult{" +
+				"size=" + content.size() +
+				", missing=" + missingIds.size() +
+				'}';
+	}
+}
@@ -0,0 +1,64 @@
+package com.yilin.reactive.r2dbc.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 游标分页(keyset/seek)结果.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/19 10:12
+ * @since 2024.0.1
+ */
+public class SeekPage<T> {
+
+	private final List<T> content;
+
+	@Nullable
+	private final String nextCursor;
+
+	public SeekPage(List<T> content, @Nullable String nextCursor) {
+		this.content = Collections.unmodifiableList(content);
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * 当前页数据.
+	 * @return /
+	 */
+	public List<T> getContent() {
+		return content;
+	}
+
+	/**
+	 * 下一页的游标, 没有下一页时为 {@literal null}.
+	 * @return /
+	 */
+	@Nullable
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @return 返回 {@literal true}, 则存在下一页.
+	 */
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	public int getSize() {
+		return content.size();
+	}
+
+	@Override
+	public String toString() {
+		return "SeekPage{" +
+				"size=" + content.size() +
+				", nextCursor='" + nextCursor + '\'' +
+				'}';
+	}
+}
@@ -1,7 +1,9 @@
 package com.yilin.reactive.r2dbc.repository;
 
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.BiFunction;
 
 import io.r2dbc.spi.Row;
@@ -18,8 +20,13 @@ import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.lang.Nullable;
 import org.springframework.r2dbc.core.DatabaseClient;
 
+import com.yilin.reactive.r2dbc.cache.EntityCache;
+import com.yilin.reactive.r2dbc.core.EntitySnapshot;
+import com.yilin.reactive.r2dbc.core.StatementCache;
+
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
@@ -39,6 +46,47 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	R2dbcEntityOperations getR2dbcEntityOperations();
 
+	/**
+	 * 返回包含已逻辑删除数据的仓库视图. 实体存在 {@link com.yilin.reactive.persistent.annotations.LogicDelete} 字段时,
+	 * 默认所有查询(包括 {@code findById}, {@code findAll}, {@code count} 等)都会在条件末尾追加 {@code deleted = 1},
+	 * 通过此视图查询时不追加. 视图只创建一次, 多次调用返回同一实例.
+	 * @return /
+	 */
+	YiLinR2dbcRepository<T, ID> includeDeleted();
+
+	/**
+	 * 获取 {@code findByQuery}, {@code findOneByQuery}, {@code countByQuery}, {@code existsByQuery} 使用的语句模板缓存, 可用于查看命中率.
+	 * 通过 {@code yilin.r2dbc.statement-cache.enabled=false} 关闭时为空.
+	 * @return /
+	 */
+	Optional<StatementCache> getStatementCache();
+
+	/**
+	 * 获取实体二级缓存, 实体未标注 {@link com.yilin.reactive.persistent.annotations.EntityCacheable} 时为空.
+	 * @return /
+	 */
+	Optional<EntityCache> getEntityCache();
+
+	/**
+	 * 按主键批量加载. 时间窗口({@code yilin.r2dbc.batch-load.max-wait})内或达到批大小的调用合并为一次
+	 * {@code WHERE id IN (...)} 查询, 结果按主键分发给各个调用, 用于逐个解析关联数据时避免 N+1 查询.
+	 * 查询条件与 {@link #findById(Object)} 相同, 事务中的调用直接查询.
+	 * @param id 主键
+	 * @return /
+	 */
+	Mono<T> findByIdBatched(ID id);
+
+	/**
+	 * 按主键列表查询, 结果按主键的输入顺序排列, 并给出未查询到的主键. 主键按 chunkSize 分块, 每块一条
+	 * {@code WHERE id IN (...)} 查询, 最多 concurrency 块并行执行, 大量主键(如 10 万个)时不会超出驱动的参数数量限制.
+	 * 查询条件与 {@link #findById(Object)} 相同.
+	 * @param ids 主键
+	 * @param chunkSize 每条查询中的最大主键数量
+	 * @param concurrency 同时执行的查询数量
+	 * @return /
+	 */
+	Mono<OrderedResult<ID, T>> findAllByIdOrdered(Collection<ID> ids, int chunkSize, int concurrency);
+
 	/**
 	 * 分页查询
 	 * @param criteria 条件
@@ -47,6 +95,28 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	Mono<Page<T>> pageByQuery(Criteria criteria, Pageable pageable);
 
+	/**
+	 * 投影分页查询, 只查询投影类型中与实体属性同名的列, 用于列表页等不需要完整实体的场景.
+	 * 投影类型可以是接口(只支持 getter 的封闭投影)或 DTO 类, 其列名按类型缓存.
+	 * @param criteria 条件
+	 * @param pageable 分页参数
+	 * @param projection 投影类型
+	 * @param <P> 投影类型
+	 * @return /
+	 */
+	<P> Mono<Page<P>> pageByQuery(Criteria criteria, Pageable pageable, Class<P> projection);
+
+	/**
+	 * 游标分页(keyset/seek)查询. 以上一页最后一行的排序键值作为查询条件, 不使用 OFFSET, 深分页与首页代价相同.
+	 * 排序中未包含主键时会追加主键作为唯一排序键, 排序字段的值不能为 {@literal null}.
+	 * @param criteria 条件
+	 * @param sort 排序
+	 * @param cursor 上一页返回的游标, 查询首页时为 {@literal null}
+	 * @param size 每页大小
+	 * @return /
+	 */
+	Mono<SeekPage<T>> seekPage(Criteria criteria, Sort sort, @Nullable String cursor, int size);
+
 	/**
 	 * 条件查询计数
 	 * @param criteria 条件
@@ -54,6 +124,20 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	Mono<Long> countByQuery(Criteria criteria);
 
+	/**
+	 * 条件查询是否存在, 执行 {@code SELECT 1 ... LIMIT 1}, 查询到第一行即返回, 替代 {@code countByQuery(criteria).map(c -> c > 0)}.
+	 * @param criteria 条件
+	 * @return /
+	 */
+	Mono<Boolean> existsByQuery(Criteria criteria);
+
+	/**
+	 * 分组聚合查询, 在数据库中执行 {@code GROUP BY} 与聚合函数, 只返回结果行. 同样追加租户与未删除条件.
+	 * @param criteria 条件
+	 * @return /
+	 */
+	AggregateSpec aggregate(Criteria criteria);
+
 	/**
 	 * 条件查询
 	 * @param criteria 条件
@@ -86,6 +170,15 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	Flux<T> findByQuery(Criteria criteria, Sort sort, int limit);
 
+	/**
+	 * 投影查询, 只查询投影类型中与实体属性同名的列, 见 {@link #pageByQuery(Criteria, Pageable, Class)}.
+	 * @param criteria 条件
+	 * @param projection 投影类型
+	 * @param <P> 投影类型
+	 * @return /
+	 */
+	<P> Flux<P> findByQuery(Criteria criteria, Class<P> projection);
+
 	/**
 	 * 查询
 	 * @param query query
@@ -93,6 +186,32 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	Flux<T> findByQuery(Query query);
 
+	/**
+	 * 流式查询, 用于导出等大结果集场景. 语句设置 {@code fetchSize}, 驱动按批从游标拉取数据,
+	 * 下游请求量限制在 {@code fetchSize} 以内, 内存占用与结果集大小无关. 不要对结果调用 {@code collectList}.
+	 * @param criteria 条件
+	 * @param fetchSize 每批拉取的行数
+	 * @return /
+	 */
+	Flux<T> streamByQuery(Criteria criteria, int fetchSize);
+
+	/**
+	 * 查询子孙节点, 不包括节点本身, 按深度排序. 实体需要标注 {@link com.yilin.reactive.persistent.annotations.ParentId} 字段,
+	 * 一条 {@code WITH RECURSIVE} 语句查询整棵子树, 租户与逻辑删除条件作用于每一层.
+	 * 数据中存在环时环上的节点会按深度重复出现, 直到达到最大深度.
+	 * @param id 节点主键
+	 * @param maxDepth 最大深度, 1 为直接子节点, 不能超过 {@link com.yilin.reactive.r2dbc.core.HierarchyStatement#MAX_DEPTH}
+	 * @return /
+	 */
+	Flux<T> findDescendants(ID id, int maxDepth);
+
+	/**
+	 * 查询祖先节点, 不包括节点本身, 从父节点到根节点排序. 要求同 {@link #findDescendants(Object, int)}.
+	 * @param id 节点主键
+	 * @return /
+	 */
+	Flux<T> findAncestors(ID id);
+
 	/**
 	 * 查询
 	 * @param query query
@@ -107,6 +226,66 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	 */
 	Mono<T> findOneByQuery(Criteria criteria);
 
+	/**
+	 * 批量写入. 按 batchSize 分批, 每批新实体({@link org.springframework.data.domain.Persistable#isNew()})
+	 * 合并为一条多行 INSERT 语句, 已存在的实体按主键更新. 新实体与 {@code save} 一样执行 {@code BeforeConvertCallback}
+	 * 与 {@code BeforeSaveCallback} 并初始化 {@code @Version} 字段, 多行 INSERT 不返回数据库生成的主键, 因此不执行
+	 * {@code AfterSaveCallback}.
+	 * @param entities 实体
+	 * @param batchSize 每批数量
+	 * @return 每批影响的行数
+	 */
+	Flux<Long> insertBatch(Publisher<T> entities, int batchSize);
+
+	/**
+	 * 批量写入或更新. 按 batchSize 分批, 每批带主键的实体合并为一条多行 UPSERT 语句(MySQL
+	 * {@code INSERT ... ON DUPLICATE KEY UPDATE}, H2 {@code MERGE INTO}), 不需要先查询再决定插入或更新.
+	 * 没有主键的实体按 {@link #insertBatch(Publisher, int)} 写入.
+	 * <p>实体存在租户字段时租户列不会更新, 主键已被其他租户的数据占用时该数据不会被覆盖:
+	 * PostgreSQL 与 MySQL 中该行不更新, H2 中因主键冲突抛出 {@link org.springframework.dao.DataIntegrityViolationException}.
+	 * <p>UPSERT 不做乐观锁检查, {@code @Version} 实体请使用 {@code save}.
+	 * @param entities 实体
+	 * @param batchSize 每批数量
+	 * @return 每批影响的行数, 其值由数据库决定, 如 MySQL 中更新的行计为 2
+	 */
+	Flux<Long> upsertAll(Publisher<T> entities, int batchSize);
+
+	/**
+	 * 按主键批量更新, 每个实体更新为各自的值. 按 batchSize 分批, 每批一次往返: PostgreSQL 与 H2 使用
+	 * {@code Statement.add()} 参数批, 其他数据库使用 {@code UPDATE ... SET c = CASE id WHEN ... END WHERE id IN (...)},
+	 * 可通过 {@code yilin.r2dbc.update-batch.mode} 指定. 实体必须包含主键, 主键、租户字段与 {@code @InsertOnlyProperty}
+	 * 不会更新, {@code @Version} 实体请使用 {@code save}. 更新前与 {@link #updateSelective(Object)} 一样执行
+	 * {@code BeforeConvertCallback}, 已逻辑删除的数据不会更新.
+	 * @param entities 实体
+	 * @param batchSize 每批数量
+	 * @return 每批影响的行数
+	 */
+	Flux<Long> updateBatch(Collection<T> entities, int batchSize);
+
+	/**
+	 * 创建实体快照, 用于 {@link #updateSelective(Object, EntitySnapshot)}.
+	 * @param objectToTrack 查询得到的实体
+	 * @return /
+	 */
+	EntitySnapshot<T> snapshot(T objectToTrack);
+
+	/**
+	 * 按主键只更新非 {@literal null} 的列, 生成 {@code UPDATE ... SET} 时不包含其他列.
+	 * 主键、租户字段与 {@code @InsertOnlyProperty} 不会更新, {@code @Version} 实体请使用 {@code save}.
+	 * 更新前执行 {@code BeforeConvertCallback}, 审计回调设置的修改时间等字段会一并更新. 已逻辑删除的数据不会更新.
+	 * @param objectToUpdate 实体
+	 * @return 影响的行数
+	 */
+	Mono<Long> updateSelective(T objectToUpdate);
+
+	/**
+	 * 按主键只更新与快照不同的列, 可以把列更新为 {@literal null}. 限制同 {@link #updateSelective(Object)}.
+	 * @param objectToUpdate 修改后的实体
+	 * @param snapshot 修改前通过 {@link #snapshot(Object)} 创建的快照
+	 * @return 影响的行数, 回调执行后仍没有变化时为 0
+	 */
+	Mono<Long> updateSelective(T objectToUpdate, EntitySnapshot<T> snapshot);
+
 	/**
 	 * 根据 ID 进行逻辑删除.
 	 *
@@ -116,10 +295,14 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	Mono<Long> logicDeleteById(ID id);
 
 	/**
-	 * 根据 idPublisher 进行逻辑删除.
+	 * 根据 idPublisher 进行逻辑删除. 按 {@code yilin.r2dbc.logic-delete.chunk-size} 分块, 每块一条
+	 * {@code UPDATE ... WHERE id IN (...)}, 最多 {@code yilin.r2dbc.logic-delete.concurrency} 块并行执行.
+	 * 每块单独提交, 需要整体原子性时由调用方开启事务. 已逻辑删除的数据不会再次更新.
+	 * 存在 MeterRegistry 时每块的耗时与行数记录为 {@code yilin.r2dbc.repository.chunks} 与
+	 * {@code yilin.r2dbc.repository.chunk.rows} 指标.
 	 *
 	 * @param idPublisher idPublisher
-	 * @return /
+	 * @return 每块删除的行数
 	 */
 	Flux<Long> logicDeleteById(Publisher<ID> idPublisher);
 
@@ -132,10 +315,10 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 	Mono<Long> logicDelete(T objectToDelete);
 
 	/**
-	 * 根据 id 进行逻辑删除.
+	 * 根据 id 进行逻辑删除, 分块方式同 {@link #logicDeleteById(Publisher)}.
 	 *
 	 * @param id id 集合
-	 * @return /
+	 * @return 删除的总行数
 	 */
 	Mono<Long> logicDeleteAllById(Iterable<? extends ID> id);
 
@@ -175,6 +358,17 @@ public interface YiLinR2dbcRepository<T, ID> extends R2dbcRepository<T, ID> {
 //	 * @return /
 //	 */
 //	Mono<Long> changeStatus(Publisher<ID> id, Integer status);
+
+	/**
+	 * 执行命名 SQL. SQL 在启动时从类路径加载并预解析绑定标记, 执行时按参数顺序绑定.
+	 * @param name 名称, 见 {@link com.yilin.reactive.r2dbc.core.NamedSqlRegistry}
+	 * @param params 参数, 值可以是 {@link org.springframework.r2dbc.core.Parameter} 以指定 {@literal null} 值的类型
+	 * @param mappingFunction 行映射
+	 * @param <R> 结果类型
+	 * @return /
+	 */
+	<R> Flux<R> execNamed(String name, Map<String, ?> params, BiFunction<Row, RowMetadata, R> mappingFunction);
+
 default <R> Mono<R> execSqlToMono(String sql, Map<String, Object> bindMap, BiFunction<Row, RowMetadata, R> mappingFunction) {
 	DatabaseClient.GenericExecuteSpec genericExecuteSpec = getR2dbcEntityOperations().getDatabaseClient().sql(sql);
 	if (bindMap != null) {
@@ -1,35 +1,97 @@
 package com.yilin.reactive.r2dbc.repository;
 
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import org.reactivestreams.Publisher;
-import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.callback.EntityCallback;
+import org.springframework.data.mapping.callback.ReactiveEntityCallbacks;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.MySqlDialect;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.r2dbc.mapping.event.BeforeSaveCallback;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
 import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.Query;
 import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.data.relational.core.sql.Functions;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.repository.query.RelationalEntityInformation;
 import org.springframework.data.util.Lazy;
 import org.springframework.data.util.Streamable;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 
-import com.yilin.reactive.persistent.annotations.LogicDelete;
-import com.yilin.reactive.persistent.annotations.TenantId;
+import com.yilin.reactive.commons.id.SnowflakeIdGenerator;
 import com.yilin.reactive.persistent.enums.DeleteStatus;
+import com.yilin.reactive.r2dbc.cache.EntityCache;
+import com.yilin.reactive.r2dbc.cache.EntityCacheUtils;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.connection.ReadWriteRoutingConnectionFactory;
+import com.yilin.reactive.r2dbc.core.Aggregation;
+import com.yilin.reactive.r2dbc.core.BatchLoader;
+import com.yilin.reactive.r2dbc.core.BatchUpdateStatement;
+import com.yilin.reactive.r2dbc.core.BulkStatement;
+import com.yilin.reactive.r2dbc.core.ChunkRecorder;
+import com.yilin.reactive.r2dbc.core.CountCache;
+import com.yilin.reactive.r2dbc.core.EntityCopier;
+import com.yilin.reactive.r2dbc.core.EntityMetadata;
+import com.yilin.reactive.r2dbc.core.EntityMetadataRegistry;
+import com.yilin.reactive.r2dbc.core.EntitySnapshot;
+import com.yilin.reactive.r2dbc.core.HierarchyStatement;
+import com.yilin.reactive.r2dbc.core.IdGeneratingCallback;
+import com.yilin.reactive.r2dbc.core.NamedSqlRegistry;
+import com.yilin.reactive.r2dbc.core.SeekCursor;
+import com.yilin.reactive.r2dbc.core.SingleFlight;
+import com.yilin.reactive.r2dbc.core.StatementCache;
+import com.yilin.reactive.r2dbc.core.TenantContext;
 
-import java.lang.reflect.Field;
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
@@ -42,34 +104,120 @@ import java.util.Optional;
  */
 public class YiLinR2dbcRepositoryImpl<T, ID> extends SimpleR2dbcRepository<T, ID> implements YiLinR2dbcRepository<T, ID> {
 
+	private static final Logger logger = LoggerFactory.getLogger(YiLinR2dbcRepositoryImpl.class);
+
+	private static final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
 	private final R2dbcEntityOperations entityOperations;
 
+	private final R2dbcConverter converter;
+
 	private final RelationalEntityInformation<T, ID> entity;
 
 	private final Lazy<RelationalPersistentProperty> idProperty;
 
-	private final Optional<String> delete;
+	private final EntityMetadata metadata;
+
+	private final Lazy<R2dbcDialect> dialect;
+
+	private final YiLinR2dbcProperties properties;
+
+	@Nullable
+	private final CountCache countCache;
+
+	@Nullable
+	private final StatementCache statementCache;
+
+	@Nullable
+	private final EntityCache entityCache;
+
+	private final Lazy<EntityCopier<T>> copier;
+
+	@Nullable
+	private final SingleFlight singleFlight;
+
+	private final Lazy<BatchLoader<ID, T>> batchLoader;
+
+	private final Disposable.Composite disposables;
+
+	@Nullable
+	private final NamedSqlRegistry namedSqlRegistry;
+
+	private final Map<Class<?>, List<SqlIdentifier>> projectionColumns;
+
+	@Nullable
+	private final SnowflakeIdGenerator idGenerator;
+
+	@Nullable
+	private final ReactiveEntityCallbacks entityCallbacks;
+
+	private final ChunkRecorder chunkRecorder;
+
+	private final boolean includeDeleted;
 
-	private final Optional<String> tenantId;
+	private final Lazy<YiLinR2dbcRepository<T, ID>> includeDeletedView;
 
 	public YiLinR2dbcRepositoryImpl(RelationalEntityInformation<T, ID> entity, R2dbcEntityOperations entityOperations,
 			R2dbcConverter converter) {
+		this(entity, entityOperations, converter, new YiLinR2dbcRepositoryOptions());
+	}
+
+	YiLinR2dbcRepositoryImpl(RelationalEntityInformation<T, ID> entity, R2dbcEntityOperations entityOperations,
+			R2dbcConverter converter, YiLinR2dbcRepositoryOptions options) {
 		super(entity, entityOperations, converter);
 
 		this.entityOperations = entityOperations;
+		this.converter = converter;
 		this.entity = entity;
+		this.properties = options.getProperties();
+		this.dialect = Lazy.of(() -> DialectResolver.getDialect(entityOperations.getDatabaseClient().getConnectionFactory()));
+		YiLinR2dbcProperties.Count count = this.properties.getCount();
+		this.countCache = count.isCacheEnabled() ? new CountCache(count.getCacheTtl(), count.getCacheMaximumSize()) : null;
+		YiLinR2dbcProperties.StatementCache statements = this.properties.getStatementCache();
+		this.statementCache = statements.isEnabled() ? new StatementCache(statements.getMaximumSize()) : null;
+		this.entityCache = options.getEntityCacheManager().getCache(entity.getJavaType());
+		this.copier = Lazy.of(() -> new EntityCopier<>(getPersistentEntity()));
+		YiLinR2dbcProperties.Coalescing coalescing = this.properties.getCoalescing();
+		this.singleFlight = coalescing.isEnabled() ? new SingleFlight(coalescing.getMaxReplay()) : null;
+		this.namedSqlRegistry = options.getNamedSqlRegistry();
+		this.projectionColumns = new ConcurrentHashMap<>();
+		this.idGenerator = options.getIdGenerator();
+		this.entityCallbacks = options.getEntityCallbacks();
+		this.chunkRecorder = options.getChunkRecorder();
 		this.idProperty = Lazy.of(() ->
 				converter.getMappingContext()
 						.getRequiredPersistentEntity(this.entity.getJavaType())
 						.getRequiredIdProperty());
-		this.delete = Arrays.stream(this.entity.getJavaType().getDeclaredFields())
-				.filter(field -> AnnotatedElementUtils.hasAnnotation(field, LogicDelete.class))
-				.map(Field::getName)
-				.findAny();
-		this.tenantId = Arrays.stream(this.entity.getJavaType().getDeclaredFields())
-				.filter(field -> AnnotatedElementUtils.hasAnnotation(field, TenantId.class))
-				.map(Field::getName)
-				.findAny();
+		this.metadata = EntityMetadataRegistry.getMetadata(converter.getMappingContext(), entity.getJavaType());
+		this.includeDeleted = false;
+		this.includeDeletedView = Lazy.of(() -> new YiLinR2dbcRepositoryImpl<>(this, true));
+		this.disposables = options.getDisposables();
+		this.batchLoader = Lazy.of(this::createBatchLoader);
+	}
+
+	private YiLinR2dbcRepositoryImpl(YiLinR2dbcRepositoryImpl<T, ID> source, boolean includeDeleted) {
+		super(source.entity, source.entityOperations, source.converter);
+		this.entityOperations = source.entityOperations;
+		this.converter = source.converter;
+		this.entity = source.entity;
+		this.properties = source.properties;
+		this.dialect = source.dialect;
+		this.countCache = source.countCache;
+		this.statementCache = source.statementCache;
+		this.entityCache = source.entityCache;
+		this.copier = source.copier;
+		this.singleFlight = source.singleFlight;
+		this.namedSqlRegistry = source.namedSqlRegistry;
+		this.projectionColumns = source.projectionColumns;
+		this.idGenerator = source.idGenerator;
+		this.entityCallbacks = source.entityCallbacks;
+		this.chunkRecorder = source.chunkRecorder;
+		this.idProperty = source.idProperty;
+		this.metadata = source.metadata;
+		this.includeDeleted = includeDeleted;
+		this.includeDeletedView = Lazy.of(() -> this);
+		this.disposables = source.disposables;
+		this.batchLoader = Lazy.of(this::createBatchLoader);
 	}
 
 	@Override
@@ -77,117 +225,685 @@ public class YiLinR2dbcRepositoryImpl<T, ID> extends SimpleR2dbcRepository<T, ID
 		return this.entityOperations;
 	}
 
+	@Override
+	public YiLinR2dbcRepository<T, ID> includeDeleted() {
+		if (this.includeDeleted || !this.metadata.hasLogicDelete()) {
+			return this;
+		}
+		return this.includeDeletedView.get();
+	}
+
+	@Override
+	public Mono<T> findById(ID id) {
+		Assert.notNull(id, "Id must not be null");
+		Mono<T> select = filter(getIdCriteria(id)).flatMap(criteria -> coalesceEntity("id|" + criteria,
+				() -> this.entityOperations.selectOne(Query.query(criteria), this.entity.getJavaType())));
+		if (isCaching()) {
+			return findCached(id, select);
+		}
+		return select.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Mono<T> findById(Publisher<ID> publisher) {
+		return Mono.from(publisher).flatMap(this::findById);
+	}
+
+	@Override
+	public Mono<T> findByIdBatched(ID id) {
+		Assert.notNull(id, "Id must not be null");
+		return this.batchLoader.get().load(id);
+	}
+
+	@Override
+	public Mono<Boolean> existsById(ID id) {
+		Assert.notNull(id, "Id must not be null");
+		return filter(getIdCriteria(id))
+				.flatMap(this::doExists)
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Mono<Boolean> existsById(Publisher<ID> publisher) {
+		return Mono.from(publisher).flatMap(this::existsById);
+	}
+
+	@Override
+	public Flux<T> findAll() {
+		return filter(Criteria.empty())
+				.flatMapMany(criteria -> this.entityOperations.select(Query.query(criteria), this.entity.getJavaType()))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Flux<T> findAll(Sort sort) {
+		Assert.notNull(sort, "Sort must not be null");
+		return filter(Criteria.empty())
+				.flatMapMany(criteria -> this.entityOperations.select(Query.query(criteria).sort(sort), this.entity.getJavaType()))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Flux<T> findAllById(Iterable<ID> iterable) {
+		Assert.notNull(iterable, "The iterable of Id's must not be null");
+		return findAllById(Flux.fromIterable(iterable));
+	}
+
+	@Override
+	public Flux<T> findAllById(Publisher<ID> idPublisher) {
+		Assert.notNull(idPublisher, "The Id Publisher must not be null");
+		String idProperty = getIdProperty().getName();
+		return Flux.from(idPublisher).buffer().filter(ids -> !ids.isEmpty()).concatMap(ids ->
+				filter(Criteria.where(idProperty).in(ids))
+						.flatMapMany(criteria -> this.entityOperations.select(Query.query(criteria), this.entity.getJavaType())))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Mono<OrderedResult<ID, T>> findAllByIdOrdered(Collection<ID> ids, int chunkSize, int concurrency) {
+		Assert.notNull(ids, "The collection of Id's must not be null");
+		Assert.noNullElements(ids, "The collection of Id's must not contain null");
+		Assert.isTrue(chunkSize > 0, "ChunkSize must be greater than 0");
+		Assert.isTrue(concurrency > 0, "Concurrency must be greater than 0");
+		String idProperty = getIdProperty().getName();
+		return Mono.defer(() -> {
+			List<T> content = new ArrayList<>(ids.size());
+			List<ID> missingIds = new ArrayList<>();
+			return Flux.fromIterable(ids).buffer(chunkSize)
+					.flatMapSequential(chunk -> findChunkOrdered(idProperty, chunk), concurrency)
+					.doOnNext(chunk -> {
+						content.addAll(chunk.getContent());
+						missingIds.addAll(chunk.getMissingIds());
+					})
+					.then(Mono.fromSupplier(() -> new OrderedResult<>(content, missingIds)));
+		}).contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	/**
+	 * 查询一块主键, 按块内主键的顺序排列结果. 块内重复的主键在 IN 条件中只出现一次.
+	 */
+	private Mono<OrderedResult<ID, T>> findChunkOrdered(String idProperty, List<ID> chunk) {
+		return filter(Criteria.where(idProperty).in(new LinkedHashSet<>(chunk)))
+				.flatMapMany(criteria -> doSelect(Query.query(criteria)))
+				.collectMap(this.entity::getRequiredId)
+				.map(found -> {
+					List<T> content = new ArrayList<>(chunk.size());
+					List<ID> missingIds = new ArrayList<>();
+					for (ID id : chunk) {
+						T object = found.get(id);
+						if (object != null) {
+							content.add(object);
+						}
+						else {
+							missingIds.add(id);
+						}
+					}
+					return new OrderedResult<>(content, missingIds);
+				});
+	}
+
+	@Override
+	public Mono<Long> count() {
+		return countByQuery(Criteria.empty());
+	}
 
 	@Override
-	@SuppressWarnings("*")
 	public Mono<Page<T>> pageByQuery(Criteria criteria, Pageable pageable) {
-		final Query query = Query.query(criteria).with(pageable);
-		return this.entityOperations.select(query.with(pageable), entity.getJavaType())
-				.collectList()
-				.map(list -> new PageImpl<>(list, pageable, list.size()));
+		return filter(criteria).flatMap(effective -> {
+			Query query = Query.query(effective).with(pageable);
+			Mono<List<T>> content = this.entityOperations.select(query, entity.getJavaType()).collectList();
+			return Mono.zip(content, countForPage(criteria, effective));
+		}).<Page<T>>map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public <P> Mono<Page<P>> pageByQuery(Criteria criteria, Pageable pageable, Class<P> projection) {
+		Assert.notNull(projection, "Projection type must not be null");
+		return filter(criteria).flatMap(effective -> {
+			Mono<List<P>> content = selectAs(Query.query(effective).with(pageable), projection).collectList();
+			return Mono.zip(content, countForPage(criteria, effective));
+		}).<Page<P>>map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public Mono<SeekPage<T>> seekPage(Criteria criteria, Sort sort, @Nullable String cursor, int size) {
+		Assert.notNull(criteria, "Criteria must not be null");
+		Assert.notNull(sort, "Sort must not be null");
+		Assert.isTrue(size > 0, "Page size must be greater than zero");
+		RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+		List<Sort.Order> orders = getSeekOrders(sort);
+		List<RelationalPersistentProperty> keys = orders.stream()
+				.map(order -> persistentEntity.getRequiredPersistentProperty(order.getProperty()))
+				.toList();
+		String fingerprint = Integer.toHexString(orders.toString().hashCode());
+
+		Criteria seekCriteria = criteria;
+		if (cursor != null) {
+			List<Class<?>> types = keys.stream().<Class<?>>map(RelationalPersistentProperty::getActualType).toList();
+			List<Object> values = SeekCursor.decode(fingerprint, cursor, types, this.converter.getConversionService());
+			seekCriteria = and(criteria, getSeekCriteria(orders, values));
+		}
+		return filter(seekCriteria)
+				.flatMap(effective -> this.entityOperations
+						.select(Query.query(effective).sort(Sort.by(orders)).limit(size + 1), entity.getJavaType())
+						.collectList())
+				.map(list -> {
+					if (list.size() <= size) {
+						return new SeekPage<>(list, null);
+					}
+					List<T> content = list.subList(0, size);
+					PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(content.get(size - 1));
+					List<Object> values = new ArrayList<>(keys.size());
+					for (RelationalPersistentProperty key : keys) {
+						Object value = accessor.getProperty(key);
+						Assert.state(value != null, () -> "Seek key '" + key.getName() + "' must not be null");
+						values.add(value);
+					}
+					return new SeekPage<>(content, SeekCursor.encode(fingerprint, values));
+				})
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
 	}
 
 	@Override
 	public Mono<Long> countByQuery(Criteria criteria) {
-		final Query query = Query.query(criteria);
-		return this.entityOperations.count(query, entity.getJavaType());
+		return filter(criteria)
+				.flatMap(effective -> coalesce("count|" + effective, () -> doCount(effective)))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	private Mono<Long> doCount(Criteria effective) {
+		if (this.statementCache == null) {
+			return this.entityOperations.count(Query.query(effective), entity.getJavaType());
+		}
+		PreparedOperation<?> operation = this.statementCache.get("count|" + StatementCache.shapeOf(effective),
+				effective, this.entityOperations.getDataAccessStrategy(), getPersistentEntity(), () -> renderCount(effective));
+		return this.entityOperations.getDatabaseClient().sql(operation)
+				.map((row, rowMetadata) -> row.get(0, Long.class))
+				.first()
+				.defaultIfEmpty(0L);
+	}
+
+	@Override
+	public Mono<Boolean> existsByQuery(Criteria criteria) {
+		return filter(criteria)
+				.flatMap(effective -> coalesce("exists|" + effective, () -> doExists(effective)))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	/**
+	 * 查询到第一行即返回, 不需要像 {@code COUNT} 一样扫描所有满足条件的行.
+	 */
+	private Mono<Boolean> doExists(Criteria effective) {
+		PreparedOperation<?> operation = (this.statementCache != null)
+				? this.statementCache.get("exists|" + StatementCache.shapeOf(effective), effective,
+						this.entityOperations.getDataAccessStrategy(), getPersistentEntity(), () -> renderExists(effective))
+				: renderExists(effective);
+		return this.entityOperations.getDatabaseClient().sql(operation)
+				.map((row, rowMetadata) -> true)
+				.first()
+				.defaultIfEmpty(false);
+	}
+
+	@Override
+	public AggregateSpec aggregate(Criteria criteria) {
+		Assert.notNull(criteria, "Criteria must not be null");
+		return new DefaultAggregateSpec(criteria, Aggregation.empty());
+	}
+
+	/**
+	 * 执行分组聚合查询, 结果由 mappingFunction 按结果列的名称映射.
+	 */
+	private <R> Flux<R> doAggregate(Criteria criteria, Aggregation aggregation,
+			BiFunction<Row, RowMetadata, R> mappingFunction) {
+		return filter(criteria)
+				.flatMapMany(effective -> {
+					PreparedOperation<String> operation = aggregation
+							.render(this.entityOperations.getDataAccessStrategy(), getPersistentEntity(), effective);
+					return this.entityOperations.getDatabaseClient().sql(operation).map(mappingFunction).all();
+				})
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
 	}
 
 	@Override
 	public Flux<T> findByQuery(Criteria criteria) {
-		final Query query = Query.query(criteria);
-		return this.entityOperations.select(query, entity.getJavaType());
+		return findByQuery(Query.query(criteria));
 	}
 
 	@Override
 	public Flux<T> findByQuery(Criteria criteria, Sort sort) {
-		final Query query = Query.query(criteria).sort(sort);
-		return this.entityOperations.select(query, entity.getJavaType());
+		return findByQuery(Query.query(criteria).sort(sort));
 	}
 
 	@Override
 	public Flux<T> findByQuery(Criteria criteria, int limit) {
-		final Query query = Query.query(criteria).limit(limit);
-		return this.entityOperations.select(query, entity.getJavaType());
+		return findByQuery(Query.query(criteria).limit(limit));
 	}
 
 	@Override
 	public Flux<T> findByQuery(Criteria criteria, Sort sort, int limit) {
-		final Query query = Query.query(criteria).sort(sort).limit(limit);
-		return this.entityOperations.select(query, entity.getJavaType());
+		return findByQuery(Query.query(criteria).sort(sort).limit(limit));
 	}
 
 	@Override
 	public Flux<T> findByQuery(Query query) {
-		return this.entityOperations.select(query, entity.getJavaType());
+		return filter(query)
+				.flatMapMany(effective -> coalesceEntities("select|" + getQueryKey(effective), () -> doSelect(effective)))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public <P> Flux<P> findByQuery(Criteria criteria, Class<P> projection) {
+		Assert.notNull(projection, "Projection type must not be null");
+		return filter(criteria)
+				.flatMapMany(effective -> selectAs(Query.query(effective), projection))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	/**
+	 * 只查询投影类型需要的列, 列名按投影类型缓存. 接口投影由代理包装实体, DTO 投影直接由转换器创建.
+	 */
+	private <P> Flux<P> selectAs(Query query, Class<P> projection) {
+		List<SqlIdentifier> columns = this.projectionColumns.computeIfAbsent(projection, this::getProjectionColumns);
+		Query projected = columns.isEmpty() ? query : query.columns(columns.toArray(new SqlIdentifier[0]));
+		return this.entityOperations.select(this.entity.getJavaType()).as(projection).matching(projected).all();
+	}
+
+	/**
+	 * 投影类型中与实体属性同名的属性对应的列. 投影类型为实体本身, 开放接口投影(使用 SpEL)或没有同名属性时查询所有列.
+	 */
+	private List<SqlIdentifier> getProjectionColumns(Class<?> projection) {
+		if (projection.isAssignableFrom(this.entity.getJavaType())) {
+			return List.of();
+		}
+		List<String> properties = new ArrayList<>();
+		if (projection.isInterface()) {
+			ProjectionInformation information = projectionFactory.getProjectionInformation(projection);
+			if (!information.isClosed()) {
+				return List.of();
+			}
+			information.getInputProperties().forEach(descriptor -> properties.add(descriptor.getName()));
+		}
+		else {
+			this.converter.getMappingContext().getRequiredPersistentEntity(projection)
+					.doWithProperties((PropertyHandler<RelationalPersistentProperty>) property -> properties.add(property.getName()));
+		}
+		RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+		return properties.stream()
+				.map(persistentEntity::getPersistentProperty)
+				.filter(Objects::nonNull)
+				.map(RelationalPersistentProperty::getColumnName)
+				.distinct()
+				.toList();
+	}
+
+	private Flux<T> doSelect(Query effective) {
+		if (this.statementCache == null) {
+			return this.entityOperations.select(effective, entity.getJavaType());
+		}
+		return this.entityOperations.query(getSelectOperation(effective), entity.getJavaType()).all();
+	}
+
+	@Override
+	public Flux<T> streamByQuery(Criteria criteria, int fetchSize) {
+		Assert.isTrue(fetchSize > 0, "FetchSize must be greater than 0");
+		return filter(criteria).flatMapMany(effective -> {
+			Query query = Query.query(effective);
+			PreparedOperation<?> operation = (this.statementCache != null) ? getSelectOperation(query) : renderSelect(query);
+			return this.entityOperations.getDatabaseClient().sql(operation)
+					.filter(statement -> statement.fetchSize(fetchSize))
+					.map((row, rowMetadata) -> this.converter.read(entity.getJavaType(), row, rowMetadata))
+					.all();
+		}).limitRate(fetchSize).contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
 	}
 
 	@Override
 	public Mono<T> findOneByQuery(Query query) {
-		return this.entityOperations.selectOne(query, entity.getJavaType());
+		return filter(query)
+				.flatMap(effective -> coalesceEntity("one|" + getQueryKey(effective), () -> doSelectOne(effective)))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	private Mono<T> doSelectOne(Query effective) {
+		if (this.statementCache == null) {
+			return this.entityOperations.selectOne(effective, entity.getJavaType());
+		}
+		return this.entityOperations.query(getSelectOperation(effective.limit(2)), entity.getJavaType()).one();
+	}
+
+	@Override
+	public Flux<T> findDescendants(ID id, int maxDepth) {
+		Assert.notNull(id, "Id must not be null");
+		return findHierarchy(id, HierarchyStatement.descendants(this.entityOperations.getDataAccessStrategy(),
+				this.metadata, !this.includeDeleted, maxDepth));
+	}
+
+	@Override
+	public Flux<T> findAncestors(ID id) {
+		Assert.notNull(id, "Id must not be null");
+		return findHierarchy(id, HierarchyStatement.ancestors(this.entityOperations.getDataAccessStrategy(),
+				this.metadata, !this.includeDeleted));
+	}
+
+	private Flux<T> findHierarchy(ID id, String sql) {
+		DatabaseClient.GenericExecuteSpec spec = this.entityOperations.getDatabaseClient().sql(sql).bind("id", id);
+		Mono<DatabaseClient.GenericExecuteSpec> bound = this.metadata.hasTenantId()
+				? getCurrentTenantId().map(tenantId -> spec.bind("tenantId", tenantId)) : Mono.just(spec);
+		return bound.flatMapMany(it -> it.map((row, rowMetadata) -> this.converter.read(entity.getJavaType(), row, rowMetadata))
+						.all())
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly);
+	}
+
+	@Override
+	public <R> Flux<R> execNamed(String name, Map<String, ?> params, BiFunction<Row, RowMetadata, R> mappingFunction) {
+		Assert.state(this.namedSqlRegistry != null, "NamedSqlRegistry must be configured to execute named SQL");
+		PreparedOperation<String> operation = this.namedSqlRegistry.get(name).bind(params);
+		return this.entityOperations.getDatabaseClient().sql(operation).map(mappingFunction).all();
+	}
+
+	@Override
+	public Optional<StatementCache> getStatementCache() {
+		return Optional.ofNullable(this.statementCache);
+	}
+
+	@Override
+	public Optional<EntityCache> getEntityCache() {
+		return Optional.ofNullable(this.entityCache);
 	}
 
 	@Override
 	public Mono<T> findOneByQuery(Criteria criteria) {
-		final Query query = Query.query(criteria);
-		return this.entityOperations.selectOne(query, entity.getJavaType());
+		return findOneByQuery(Query.query(criteria));
+	}
+
+	@Override
+	public <S extends T> Mono<S> save(S objectToSave) {
+		Assert.notNull(objectToSave, "Object to save must not be null");
+		ID id = this.entity.getId(objectToSave);
+		if (!this.metadata.hasTenantId()) {
+			return evicting(super.save(objectToSave), () -> evict(id));
+		}
+		return evicting(getCurrentTenantId().flatMap(tenantId -> {
+			S object = populateTenantId(objectToSave, tenantId);
+			return this.entity.isNew(object) ? this.entityOperations.insert(object) : updateInTenant(object, tenantId);
+		}), () -> evict(id));
+	}
+
+	/**
+	 * 更新已存在的实体, 实体存在租户字段时只能更新当前租户的数据.
+	 */
+	private <S extends T> Mono<S> update(S objectToUpdate) {
+		if (!this.metadata.hasTenantId()) {
+			return this.entityOperations.update(objectToUpdate);
+		}
+		return getCurrentTenantId().flatMap(tenantId -> updateInTenant(objectToUpdate, tenantId));
+	}
+
+	/**
+	 * 按主键与租户更新实体, 与 {@link R2dbcEntityOperations#update(Object)} 一样执行实体回调并处理 {@code @Version}.
+	 * 租户列不会更新, 数据不存在、属于其他租户或版本不一致时抛出 {@link OptimisticLockingFailureException}.
+	 */
+	private <S extends T> Mono<S> updateInTenant(S objectToUpdate, String tenantId) {
+		SqlIdentifier table = this.entity.getTableName();
+		return callback(BeforeConvertCallback.class, objectToUpdate, table).flatMap(object -> {
+			RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+			ReactiveDataAccessStrategy strategy = this.entityOperations.getDataAccessStrategy();
+			ID id = this.entity.getRequiredId(object);
+			Criteria criteria = Criteria.where(this.metadata.getTenantId().get().property()).is(tenantId)
+					.and(getIdCriteria(id));
+			S versioned = object;
+			if (persistentEntity.hasVersionProperty()) {
+				RelationalPersistentProperty version = persistentEntity.getRequiredVersionProperty();
+				PersistentPropertyAccessor<S> accessor = persistentEntity.getPropertyAccessor(object);
+				Object current = accessor.getProperty(version);
+				criteria = (current != null) ? criteria.and(version.getName()).is(current)
+						: criteria.and(version.getName()).isNull();
+				long next = (current != null) ? this.converter.getConversionService().convert(current, Long.class) + 1 : 1L;
+				accessor.setProperty(version, this.converter.getConversionService().convert(next, version.getType()));
+				versioned = accessor.getBean();
+			}
+			Criteria matching = criteria;
+			OutboundRow row = strategy.getOutboundRow(versioned);
+			return this.<S>callback(BeforeSaveCallback.class, versioned, row, table).flatMap(saved -> {
+				Map<SqlIdentifier, Object> assignments = new LinkedHashMap<>(row);
+				assignments.remove(getIdProperty().getColumnName());
+				assignments.remove(this.metadata.getTenantId().get().name());
+				persistentEntity.doWithProperties((PropertyHandler<RelationalPersistentProperty>) property -> {
+					if (property.isInsertOnly()) {
+						assignments.remove(property.getColumnName());
+					}
+				});
+				return this.entityOperations.update(Query.query(matching), Update.from(assignments), this.entity.getJavaType())
+						.flatMap(rows -> (rows == 0) ? Mono.error(new OptimisticLockingFailureException(
+								String.format("Failed to update table [%s]; Row with Id [%s] does not exist in tenant [%s] or has been modified",
+										table.getReference(), id, tenantId)))
+								: callback(AfterSaveCallback.class, saved, row, table));
+			});
+		});
+	}
+
+	private <S> Mono<S> callback(Class<? extends EntityCallback> callbackType, S object, Object... args) {
+		if (this.entityCallbacks == null) {
+			return Mono.just(object);
+		}
+		return this.entityCallbacks.callback(callbackType, object, args);
+	}
+
+	@Override
+	public EntitySnapshot<T> snapshot(T objectToTrack) {
+		return EntitySnapshot.of(getPersistentEntity(), objectToTrack);
+	}
+
+	@Override
+	public Mono<Long> updateSelective(T objectToUpdate) {
+		return doUpdateSelective(objectToUpdate, (property, value) -> value != null);
+	}
+
+	@Override
+	public Mono<Long> updateSelective(T objectToUpdate, EntitySnapshot<T> snapshot) {
+		Assert.notNull(snapshot, "Snapshot must not be null");
+		Assert.isTrue(snapshot.getType() == this.entity.getJavaType(), "Snapshot must be taken from the same entity type");
+		return doUpdateSelective(objectToUpdate, snapshot::isChanged);
+	}
+
+	/**
+	 * 按主键只更新满足条件的列. 主键、租户与只允许插入的列不会更新.
+	 * 先执行 {@link BeforeConvertCallback}, 以回调修改后的实体判断需要更新的列, 审计字段因此会随更新刷新.
+	 * 已逻辑删除的数据不会更新, 通过 {@link #includeDeleted()} 获取的仓库除外.
+	 */
+	private Mono<Long> doUpdateSelective(T objectToUpdate, BiPredicate<String, Object> include) {
+		Assert.notNull(objectToUpdate, "Object to update must not be null");
+		RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+		Assert.isTrue(!persistentEntity.hasVersionProperty(), "Entities with @Version must be updated with save");
+		ID id = this.entity.getRequiredId(objectToUpdate);
+		String tenantProperty = this.metadata.getTenantId().map(EntityMetadata.Column::property).orElse(null);
+		return evicting(callback(BeforeConvertCallback.class, objectToUpdate, this.entity.getTableName()).flatMap(object -> {
+			PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(object);
+			Map<SqlIdentifier, Object> assignments = new LinkedHashMap<>();
+			persistentEntity.doWithProperties((PropertyHandler<RelationalPersistentProperty>) property -> {
+				if (property.isIdProperty() || property.isInsertOnly() || property.getName().equals(tenantProperty)) {
+					return;
+				}
+				Object value = accessor.getProperty(property);
+				if (include.test(property.getName(), value)) {
+					assignments.put(SqlIdentifier.unquoted(property.getName()), value);
+				}
+			});
+			if (assignments.isEmpty()) {
+				return Mono.just(0L);
+			}
+			return filter(getIdCriteria(id)).flatMap(criteria -> this.entityOperations
+					.update(Query.query(criteria), Update.from(assignments), this.entity.getJavaType()));
+		}), () -> evict(id));
 	}
 
 	@Override
 	@Transactional
-	public Mono<Long> logicDeleteById(ID id) {
+	public Mono<Void> deleteById(ID id) {
 		Assert.notNull(id, "Id must not be null");
-		Assert.isTrue(delete.isPresent(), "@LogicDelete annotation must not be null");
-		return this.entityOperations
-				.update(getIdQuery(id), Update.update(delete.get(), DeleteStatus.DELETED.getStatus()), this.entity.getJavaType());
+		return evicting(tenantFilter(getIdCriteria(id))
+				.flatMap(criteria -> this.entityOperations.delete(Query.query(criteria), this.entity.getJavaType())), () -> evict(id))
+				.then();
 	}
 
 	@Override
 	@Transactional
-	public Flux<Long> logicDeleteById(Publisher<ID> idPublisher) {
+	public Mono<Void> deleteById(Publisher<ID> idPublisher) {
 		Assert.notNull(idPublisher, "The Id Publisher must not be null");
-		Assert.isTrue(delete.isPresent(), "@LogicDelete annotation must not be null");
-		return Flux.from(idPublisher).buffer().filter(ids -> !ids.isEmpty()).concatMap(ids -> {
-			if (ids.isEmpty()) {
-				return Flux.empty();
-			}
+		String idProperty = getIdProperty().getName();
+		return Flux.from(idPublisher).buffer().filter(ids -> !ids.isEmpty()).concatMap(ids ->
+				evicting(tenantFilter(Criteria.where(idProperty).in(ids))
+						.flatMap(criteria -> this.entityOperations.delete(Query.query(criteria), this.entity.getJavaType())),
+						() -> ids.forEach(this::evict)))
+				.then();
+	}
+
+	@Override
+	@Transactional
+	public Mono<Void> deleteAllById(Iterable<? extends ID> ids) {
+		Assert.notNull(ids, "The iterable of Id's must not be null");
+		List<? extends ID> idList = Streamable.of(ids).toList();
+		if (idList.isEmpty()) {
+			return Mono.empty();
+		}
+		return evicting(tenantFilter(Criteria.where(getIdProperty().getName()).in(idList))
+				.flatMap(criteria -> this.entityOperations.delete(Query.query(criteria), this.entity.getJavaType())),
+				() -> idList.forEach(this::evict))
+				.then();
+	}
 
-			String idProperty = getIdProperty().getName();
-			return this.entityOperations.update(Query.query(Criteria.where(idProperty).in(ids)),
-					Update.update(delete.get(), DeleteStatus.DELETED.getStatus()),
-					this.entity.getJavaType());
+	@Override
+	@Transactional
+	public Mono<Void> deleteAll() {
+		return evicting(tenantFilter(Criteria.empty())
+				.flatMap(criteria -> this.entityOperations.delete(Query.query(criteria), this.entity.getJavaType())),
+				this::clearCache)
+				.then();
+	}
+
+	@Override
+	@Transactional
+	public Flux<Long> insertBatch(Publisher<T> entities, int batchSize) {
+		Assert.notNull(entities, "The entity publisher must not be null");
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+		return populateTenantId(Flux.from(entities)).buffer(batchSize)
+				.concatMap(chunk -> evicting(insertChunk(chunk), () -> evictAll(chunk)));
+	}
+
+	@Override
+	@Transactional
+	public Flux<Long> upsertAll(Publisher<T> entities, int batchSize) {
+		Assert.notNull(entities, "The entity publisher must not be null");
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+		Assert.isTrue(!getPersistentEntity().hasVersionProperty(), "Entities with @Version must be saved with save");
+		return populateTenantId(Flux.from(entities)).buffer(batchSize)
+				.concatMap(chunk -> evicting(upsertChunk(chunk), () -> evictAll(chunk)));
+	}
+
+	@Override
+	@Transactional
+	public Flux<Long> updateBatch(Collection<T> entities, int batchSize) {
+		Assert.notNull(entities, "The collection of entities must not be null");
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+		Assert.isTrue(!getPersistentEntity().hasVersionProperty(), "Entities with @Version must be updated with save");
+		return getTenantFilters().flatMapMany(filters -> Flux.fromIterable(entities).buffer(batchSize)
+				.concatMap(chunk -> evicting(updateChunk(chunk, filters), () -> evictAll(chunk))));
+	}
+
+	/**
+	 * 按列分组后批量更新一批实体. 主键、租户与只允许插入的列不会更新. 每个实体先执行 {@link BeforeConvertCallback},
+	 * 已逻辑删除的数据不会更新, 通过 {@link #includeDeleted()} 获取的仓库除外.
+	 */
+	private Mono<Long> updateChunk(List<T> chunk, Map<SqlIdentifier, Object> filters) {
+		ReactiveDataAccessStrategy strategy = this.entityOperations.getDataAccessStrategy();
+		SqlIdentifier table = this.entity.getTableName();
+		SqlIdentifier idColumn = getIdProperty().getColumnName();
+		List<SqlIdentifier> excluded = new ArrayList<>(filters.keySet());
+		excluded.add(idColumn);
+		getPersistentEntity().doWithProperties((PropertyHandler<RelationalPersistentProperty>) property -> {
+			if (property.isInsertOnly()) {
+				excluded.add(property.getColumnName());
+			}
 		});
+		Map<SqlIdentifier, Object> conditions = new LinkedHashMap<>(filters);
+		if (!this.includeDeleted && this.metadata.hasLogicDelete()) {
+			conditions.put(this.metadata.getLogicDelete().get().name(), DeleteStatus.NORMAL.getStatus());
+		}
+		DatabaseClient databaseClient = this.entityOperations.getDatabaseClient();
+		boolean statementBatch = isStatementBatch();
+		return Flux.fromIterable(chunk)
+				.concatMap(object -> callback(BeforeConvertCallback.class, object, table))
+				.collect(LinkedHashMap<List<SqlIdentifier>, List<OutboundRow>>::new, (updates, object) -> {
+					Assert.notNull(this.entity.getId(object), "Id must not be null for batch update");
+					OutboundRow row = strategy.getOutboundRow(object);
+					List<SqlIdentifier> columns = row.keySet().stream().filter(column -> !excluded.contains(column)).toList();
+					updates.computeIfAbsent(columns, key -> new ArrayList<>()).add(row);
+				})
+				.flatMapMany(updates -> Flux.fromIterable(updates.entrySet()))
+				.filter(entry -> !entry.getKey().isEmpty())
+				.concatMap(entry -> statementBatch
+						? BatchUpdateStatement.update(strategy, this.dialect.get(), table, idColumn,
+								entry.getKey(), entry.getValue(), conditions).execute(databaseClient)
+						: BulkStatement.update(strategy, table, idColumn, entry.getKey(),
+								entry.getValue(), conditions).execute(databaseClient))
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * {@code yilin.r2dbc.update-batch.mode} 为 {@code AUTO} 时, 能流水线执行参数批的 PostgreSQL 与 H2 使用参数批,
+	 * 其他数据库使用 {@code CASE} 语句.
+	 */
+	private boolean isStatementBatch() {
+		YiLinR2dbcProperties.UpdateBatch.Mode mode = this.properties.getUpdateBatch().getMode();
+		if (mode == YiLinR2dbcProperties.UpdateBatch.Mode.AUTO) {
+			R2dbcDialect dialect = this.dialect.get();
+			return dialect instanceof PostgresDialect || dialect instanceof H2Dialect;
+		}
+		return mode == YiLinR2dbcProperties.UpdateBatch.Mode.STATEMENT_BATCH;
+	}
+
+	@Override
+	@Transactional
+	public Mono<Long> logicDeleteById(ID id) {
+		Assert.notNull(id, "Id must not be null");
+		Assert.isTrue(this.metadata.hasLogicDelete(), "@LogicDelete annotation must not be null");
+		return evicting(tenantFilter(getIdCriteria(id))
+				.flatMap(criteria -> this.entityOperations
+						.update(Query.query(criteria), this.metadata.getLogicDeleteUpdate(), this.entity.getJavaType())),
+				() -> evict(id));
+	}
+
+	@Override
+	public Flux<Long> logicDeleteById(Publisher<ID> idPublisher) {
+		Assert.notNull(idPublisher, "The Id Publisher must not be null");
+		Assert.isTrue(this.metadata.hasLogicDelete(), "@LogicDelete annotation must not be null");
+		return logicDeleteInChunks(Flux.from(idPublisher));
 	}
 
 	@Override
 	@Transactional
 	public Mono<Long> logicDelete(T objectToDelete) {
 		Assert.notNull(objectToDelete, "object to delete must not be null");
-		Assert.isTrue(delete.isPresent(), "@LogicDelete annotation must not be null");
+		Assert.isTrue(this.metadata.hasLogicDelete(), "@LogicDelete annotation must not be null");
 		return logicDeleteById(this.entity.getRequiredId(objectToDelete));
 	}
 
 	@Override
 	public Mono<Long> logicDeleteAllById(Iterable<? extends ID> ids) {
 		Assert.notNull(ids, "the iterable of Id's must not be null");
-		var idList = Streamable.of(ids).toList();
-		String idProperty = getIdProperty().getName();
-		return this.entityOperations
-				.update(Query.query(Criteria.where(idProperty).in(idList)),
-						Update.update(delete.get(), DeleteStatus.DELETED.getStatus()),
-						this.entity.getJavaType());
+		Assert.isTrue(this.metadata.hasLogicDelete(), "@LogicDelete annotation must not be null");
+		return logicDeleteInChunks(Flux.fromIterable(ids)).reduce(0L, Long::sum);
 	}
 
 
 	@Override
-	@Transactional
 	public Flux<Long> logicDeleteAll(Iterable<? extends T> iterable) {
 		Assert.notNull(iterable, "the iterable of Id's must not be null");
 		return logicDeleteAll(Flux.fromIterable(iterable));
 	}
 
 	@Override
-	@Transactional
 	public Flux<Long> logicDeleteAll(Publisher<? extends T> objectPublisher) {
 		Assert.notNull(objectPublisher, "the object publisher must not be null");
 		var idPublisher = Flux.from(objectPublisher)
@@ -198,10 +914,11 @@ public class YiLinR2dbcRepositoryImpl<T, ID> extends SimpleR2dbcRepository<T, ID
 	@Override
 	@Transactional
 	public Mono<Long> logicDeleteAll() {
-		Assert.isTrue(delete.isPresent(), "@LogicDelete annotation must not be null");
-		return this.entityOperations.update(Query.empty(),
-				Update.update(delete.get(), DeleteStatus.DELETED.getStatus()),
-				this.entity.getJavaType());
+		Assert.isTrue(this.metadata.hasLogicDelete(), "@LogicDelete annotation must not be null");
+		return evicting(tenantFilter(Criteria.empty())
+				.flatMap(criteria -> this.entityOperations.update(Query.query(criteria),
+						this.metadata.getLogicDeleteUpdate(),
+						this.entity.getJavaType())), this::clearCache);
 	}
 
 //	@Override
@@ -228,11 +945,540 @@ public class YiLinR2dbcRepositoryImpl<T, ID> extends SimpleR2dbcRepository<T, ID
 //		}));
 //	}
 
+	/**
+	 * 按 chunkSize 分块逻辑删除, 每块一条 {@code UPDATE ... WHERE id IN (...)}, 最多 concurrency 块并行执行.
+	 * 只更新未删除的数据, 统计的行数即本次删除的行数. 输入按需拉取, 内存占用与输入总量无关.
+	 * 每块的耗时与行数记录到 {@link ChunkRecorder} 并以 DEBUG 级别输出, 完成后输出总量与速率.
+	 */
+	private Flux<Long> logicDeleteInChunks(Flux<? extends ID> ids) {
+		YiLinR2dbcProperties.LogicDelete options = this.properties.getLogicDelete();
+		String idProperty = getIdProperty().getName();
+		Update update = this.metadata.getLogicDeleteUpdate();
+		Criteria notDeleted = this.metadata.getNotDeletedCriteria();
+		return Flux.defer(() -> {
+			long start = System.nanoTime();
+			AtomicLong rows = new AtomicLong();
+			AtomicLong chunks = new AtomicLong();
+			return ids.buffer(options.getChunkSize())
+					.flatMap(chunk -> evicting(tenantFilter(and(Criteria.where(idProperty).in(chunk), notDeleted))
+							.flatMap(criteria -> this.entityOperations.update(Query.query(criteria), update, this.entity.getJavaType())),
+							() -> chunk.forEach(this::evict))
+							.elapsed()
+							.map(result -> {
+								chunks.incrementAndGet();
+								rows.addAndGet(result.getT2());
+								this.chunkRecorder.record(this.entity.getJavaType(), "logicDelete", result.getT2(),
+										Duration.ofMillis(result.getT1()));
+								if (logger.isDebugEnabled()) {
+									logger.debug("Logic deleted {} of {} {} in {} ms", result.getT2(), chunk.size(),
+											this.entity.getJavaType().getSimpleName(), result.getT1());
+								}
+								return result.getT2();
+							}), options.getConcurrency())
+					.doOnComplete(() -> {
+						if (chunks.get() > 0 && logger.isInfoEnabled()) {
+							long elapsed = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+							logger.info("Logic deleted {} {} in {} chunks, {} ms ({} rows/s)", rows.get(),
+									this.entity.getJavaType().getSimpleName(), chunks.get(), elapsed, rows.get() * 1000 / elapsed);
+						}
+					});
+		});
+	}
+
+	/**
+	 * 写入一批实体, 新实体按列分组后合并为多行 INSERT, 其余实体在当前租户内逐个更新.
+	 */
+	private Mono<Long> insertChunk(List<T> chunk) {
+		List<T> inserts = new ArrayList<>();
+		List<T> updates = new ArrayList<>();
+		for (T object : chunk) {
+			(this.entity.isNew(object) ? inserts : updates).add(object);
+		}
+		Flux<Long> updated = Flux.fromIterable(updates)
+				.concatMap(this::update)
+				.map(saved -> 1L);
+		return insertRows(inserts).concatWith(updated).reduce(0L, Long::sum);
+	}
+
+	/**
+	 * 写入或更新一批实体, 带主键的实体合并为多行 UPSERT, 没有主键的实体合并为多行 INSERT.
+	 * 实体存在租户字段时 UPSERT 不会覆盖其他租户的数据.
+	 */
+	private Mono<Long> upsertChunk(List<T> chunk) {
+		ReactiveDataAccessStrategy strategy = this.entityOperations.getDataAccessStrategy();
+		SqlIdentifier idColumn = getIdProperty().getColumnName();
+		List<T> inserts = new ArrayList<>();
+		Map<List<SqlIdentifier>, List<OutboundRow>> upserts = new LinkedHashMap<>();
+		for (T object : chunk) {
+			if (this.entity.getId(object) == null) {
+				inserts.add(object);
+				continue;
+			}
+			OutboundRow row = strategy.getOutboundRow(object);
+			upserts.computeIfAbsent(new ArrayList<>(row.keySet()), columns -> new ArrayList<>()).add(row);
+		}
+		SqlIdentifier tenantColumn = this.metadata.getTenantId().map(EntityMetadata.Column::name).orElse(null);
+		DatabaseClient databaseClient = this.entityOperations.getDatabaseClient();
+		Flux<Long> upserted = Flux.fromIterable(upserts.entrySet())
+				.concatMap(entry -> BulkStatement.upsert(strategy, this.dialect.get(), this.entity.getTableName(),
+						idColumn, tenantColumn, entry.getKey(), entry.getValue()).execute(databaseClient));
+		return insertRows(inserts).concatWith(upserted).reduce(0L, Long::sum);
+	}
+
+	/**
+	 * 按列分组后以多行 INSERT 写入. 配置了主键生成器时先为主键为空的实体生成主键, 否则由数据库生成.
+	 * 每个实体与 {@link R2dbcEntityOperations#insert(Object)} 一样执行 {@link BeforeConvertCallback} 与
+	 * {@link BeforeSaveCallback} 并初始化 {@code @Version} 字段.
+	 */
+	private Flux<Long> insertRows(List<T> objects) {
+		if (objects.isEmpty()) {
+			return Flux.empty();
+		}
+		ReactiveDataAccessStrategy strategy = this.entityOperations.getDataAccessStrategy();
+		SqlIdentifier table = this.entity.getTableName();
+		SqlIdentifier idColumn = getIdProperty().getColumnName();
+		List<T> prepared = (this.idGenerator != null)
+				? IdGeneratingCallback.assignIds(getPersistentEntity(), objects, this.idGenerator) : objects;
+		return Flux.fromIterable(prepared)
+				.concatMap(object -> callback(BeforeConvertCallback.class, object, table).flatMap(converted -> {
+					T initialized = initializeVersion(converted);
+					OutboundRow row = strategy.getOutboundRow(initialized);
+					return callback(BeforeSaveCallback.class, initialized, row, table).thenReturn(row);
+				}))
+				.collect(LinkedHashMap<List<SqlIdentifier>, List<OutboundRow>>::new, (inserts, row) -> {
+					Parameter id = row.get(idColumn);
+					if (id != null && !id.hasValue()) {
+						row.remove(idColumn);
+					}
+					inserts.computeIfAbsent(new ArrayList<>(row.keySet()), columns -> new ArrayList<>()).add(row);
+				})
+				.flatMapMany(inserts -> Flux.fromIterable(inserts.entrySet())
+						.concatMap(entry -> BulkStatement.insert(strategy, table, entry.getKey(), entry.getValue())
+								.execute(this.entityOperations.getDatabaseClient())));
+	}
+
+	/**
+	 * 与 {@link R2dbcEntityOperations#insert(Object)} 一样设置 {@code @Version} 字段的初始值, 基本类型为 1, 包装类型为 0.
+	 */
+	private T initializeVersion(T object) {
+		RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+		if (!persistentEntity.hasVersionProperty()) {
+			return object;
+		}
+		RelationalPersistentProperty version = persistentEntity.getRequiredVersionProperty();
+		PersistentPropertyAccessor<T> accessor = persistentEntity.getPropertyAccessor(object);
+		long initial = version.getType().isPrimitive() ? 1L : 0L;
+		accessor.setProperty(version, this.converter.getConversionService().convert(initial, version.getType()));
+		return accessor.getBean();
+	}
+
+	/**
+	 * 分页查询的总数. 开启缓存时优先读取缓存, 配置为近似总数的表在无查询条件、不区分租户且没有逻辑删除条件时
+	 * 读取数据库统计信息, 统计信息中的行数包括其他租户与已逻辑删除的数据.
+	 * @param criteria 调用方的查询条件
+	 * @param effective 追加了租户与逻辑删除条件后的查询条件
+	 */
+	private Mono<Long> countForPage(Criteria criteria, Criteria effective) {
+		String table = this.entity.getTableName().getReference();
+		Mono<Long> exact = this.entityOperations.count(Query.query(effective), entity.getJavaType());
+		Mono<Long> count = (criteria.isEmpty() && !this.metadata.hasTenantId()
+				&& (this.includeDeleted || !this.metadata.hasLogicDelete())
+				&& this.properties.getCount().getApproximateTables().contains(table))
+				? approximateCount(table).switchIfEmpty(exact)
+				: exact;
+		if (this.countCache == null) {
+			return count;
+		}
+		String key = table + ':' + effective;
+		return Mono.defer(() -> {
+			Long cached = this.countCache.get(key);
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+			return count.doOnNext(total -> this.countCache.put(key, total));
+		});
+	}
+
+	/**
+	 * 从数据库统计信息中读取表的近似行数, 不支持的数据库返回空.
+	 */
+	private Mono<Long> approximateCount(String table) {
+		R2dbcDialect dialect = this.dialect.get();
+		String sql;
+		if (dialect instanceof MySqlDialect) {
+			sql = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :table";
+		}
+		else if (dialect instanceof H2Dialect) {
+			sql = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = UPPER(:table)";
+		}
+		else if (dialect instanceof PostgresDialect) {
+			sql = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = :table";
+		}
+		else {
+			return Mono.empty();
+		}
+		return this.entityOperations.getDatabaseClient().sql(sql)
+				.bind("table", table)
+				.map((row, metadata) -> row.get(0, Long.class))
+				.first()
+				.filter(total -> total >= 0);
+	}
+
 	private RelationalPersistentProperty getIdProperty() {
 		return this.idProperty.get();
 	}
 
-	private Query getIdQuery(Object id) {
-		return Query.query(Criteria.where(getIdProperty().getName()).is(id));
+	@SuppressWarnings("unchecked")
+	private RelationalPersistentEntity<T> getPersistentEntity() {
+		return (RelationalPersistentEntity<T>) this.converter.getMappingContext()
+				.getRequiredPersistentEntity(this.entity.getJavaType());
+	}
+
+	/**
+	 * 游标分页的排序键, 未包含主键时追加主键保证排序唯一.
+	 */
+	private List<Sort.Order> getSeekOrders(Sort sort) {
+		List<Sort.Order> orders = new ArrayList<>(sort.toList());
+		String idProperty = getIdProperty().getName();
+		if (orders.stream().noneMatch(order -> order.getProperty().equals(idProperty))) {
+			orders.add(Sort.Order.asc(idProperty));
+		}
+		return orders;
+	}
+
+	/**
+	 * 生成 {@code (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ...} 形式的 keyset 条件, 降序时使用 {@code <}.
+	 */
+	private Criteria getSeekCriteria(List<Sort.Order> orders, List<Object> values) {
+		Criteria seek = null;
+		for (int i = 0; i < orders.size(); i++) {
+			Criteria branch = null;
+			for (int j = 0; j < i; j++) {
+				String property = orders.get(j).getProperty();
+				branch = (branch != null) ? branch.and(property).is(values.get(j)) : Criteria.where(property).is(values.get(j));
+			}
+			Sort.Order order = orders.get(i);
+			Criteria.CriteriaStep step = (branch != null) ? branch.and(order.getProperty()) : Criteria.where(order.getProperty());
+			branch = order.isAscending() ? step.greaterThan(values.get(i)) : step.lessThan(values.get(i));
+			seek = (seek != null) ? seek.or(branch) : branch;
+		}
+		return seek;
+	}
+
+	/**
+	 * 以分组的方式合并条件, 避免 {@code OR} 条件与追加的条件优先级错乱.
+	 */
+	private static Criteria and(Criteria criteria, Criteria predicate) {
+		if (criteria.isEmpty()) {
+			return predicate;
+		}
+		return Criteria.empty().and(criteria).and(predicate);
+	}
+
+	/**
+	 * 生成查询使用的完整条件: 租户条件在前, 以便使用 {@code (tenant_id, ...)} 联合索引, 调用方条件居中,
+	 * 未删除条件在后. 实体没有 {@link com.yilin.reactive.persistent.annotations.LogicDelete} 字段或通过
+	 * {@link #includeDeleted()} 获取的仓库不追加未删除条件.
+	 */
+	private Mono<Criteria> filter(Criteria criteria) {
+		if (this.includeDeleted || !this.metadata.hasLogicDelete()) {
+			return tenantFilter(criteria);
+		}
+		return tenantFilter(and(criteria, this.metadata.getNotDeletedCriteria()));
+	}
+
+	/**
+	 * 追加租户与未删除条件, 保留查询列、排序、偏移量与数量限制.
+	 */
+	private Mono<Query> filter(Query query) {
+		Criteria criteria = query.getCriteria().map(Criteria.class::cast).orElse(Criteria.empty());
+		return filter(criteria).map(effective -> Query.query(effective)
+				.columns(query.getColumns().toArray(new SqlIdentifier[0]))
+				.sort(query.getSort())
+				.offset(query.getOffset())
+				.limit(query.getLimit()));
+	}
+
+	/**
+	 * 在条件前追加当前租户条件, 实体没有 {@link com.yilin.reactive.persistent.annotations.TenantId} 字段时不追加.
+	 */
+	private Mono<Criteria> tenantFilter(Criteria criteria) {
+		if (!this.metadata.hasTenantId()) {
+			return Mono.just(criteria);
+		}
+		String tenantProperty = this.metadata.getTenantId().get().property();
+		return getCurrentTenantId().map(tenantId -> {
+			Criteria tenant = Criteria.where(tenantProperty).is(tenantId);
+			return criteria.isEmpty() ? tenant : tenant.and(criteria);
+		});
+	}
+
+	/**
+	 * 当前租户的等值条件, 以租户列为键, 实体没有租户字段时为空.
+	 */
+	private Mono<Map<SqlIdentifier, Object>> getTenantFilters() {
+		if (!this.metadata.hasTenantId()) {
+			return Mono.just(Map.of());
+		}
+		SqlIdentifier tenantColumn = this.metadata.getTenantId().get().name();
+		return getCurrentTenantId().map(tenantId -> Map.of(tenantColumn, tenantId));
+	}
+
+	/**
+	 * 当前租户 ID, Reactor Context 中没有时使用 {@code yilin.r2dbc.tenant.default-tenant-id}.
+	 */
+	private Mono<String> getCurrentTenantId() {
+		return TenantContext.getTenantId().defaultIfEmpty(this.properties.getTenant().getDefaultTenantId());
+	}
+
+	/**
+	 * 实体的租户字段为空时填充当前租户.
+	 */
+	private Flux<T> populateTenantId(Flux<T> objects) {
+		if (!this.metadata.hasTenantId()) {
+			return objects;
+		}
+		return getCurrentTenantId().flatMapMany(tenantId -> objects.map(object -> populateTenantId(object, tenantId)));
+	}
+
+	private <S extends T> S populateTenantId(S object, String tenantId) {
+		RelationalPersistentProperty property = getPersistentEntity()
+				.getRequiredPersistentProperty(this.metadata.getTenantId().get().property());
+		PersistentPropertyAccessor<S> accessor = getPersistentEntity().getPropertyAccessor(object);
+		if (accessor.getProperty(property) != null) {
+			return object;
+		}
+		accessor.setProperty(property, this.converter.getConversionService().convert(tenantId, property.getType()));
+		return accessor.getBean();
+	}
+
+	/**
+	 * 从语句模板缓存中获取查询语句, 以查询列、排序、分页与条件结构为键.
+	 */
+	private PreparedOperation<?> getSelectOperation(Query query) {
+		String key = "select|" + query.getColumns() + '|' + query.getSort() + '|' + query.getLimit() + '|'
+				+ query.getOffset() + '|' + query.getCriteria().map(StatementCache::shapeOf).orElse("");
+		return this.statementCache.get(key, query.getCriteria().orElse(null), this.entityOperations.getDataAccessStrategy(),
+				getPersistentEntity(), () -> renderSelect(query));
+	}
+
+	private PreparedOperation<?> renderSelect(Query query) {
+		StatementMapper mapper = this.entityOperations.getDataAccessStrategy().getStatementMapper().forType(entity.getJavaType());
+		List<SqlIdentifier> columns = query.getColumns();
+		StatementMapper.SelectSpec select = mapper.createSelect(this.entity.getTableName())
+				.doWithTable((table, spec) -> columns.isEmpty() ? spec.withProjection(table.asterisk())
+						: spec.withProjection(columns.stream().map(table::column).toList()))
+				.withSort(query.getSort());
+		if (query.isLimited()) {
+			select = select.limit(query.getLimit());
+		}
+		if (query.getOffset() > 0) {
+			select = select.offset(query.getOffset());
+		}
+		if (query.getCriteria().isPresent()) {
+			select = select.withCriteria(query.getCriteria().get());
+		}
+		return mapper.getMappedObject(select);
+	}
+
+	private PreparedOperation<?> renderCount(Criteria criteria) {
+		StatementMapper mapper = this.entityOperations.getDataAccessStrategy().getStatementMapper().forType(entity.getJavaType());
+		StatementMapper.SelectSpec select = mapper.createSelect(this.entity.getTableName())
+				.withProjection(Functions.count(Expressions.asterisk()));
+		return mapper.getMappedObject(criteria.isEmpty() ? select : select.withCriteria(criteria));
+	}
+
+	private PreparedOperation<?> renderExists(Criteria criteria) {
+		StatementMapper mapper = this.entityOperations.getDataAccessStrategy().getStatementMapper().forType(entity.getJavaType());
+		StatementMapper.SelectSpec select = mapper.createSelect(this.entity.getTableName())
+				.withProjection(Expressions.just("1"))
+				.limit(1);
+		return mapper.getMappedObject(criteria.isEmpty() ? select : select.withCriteria(criteria));
+	}
+
+	private BatchLoader<ID, T> createBatchLoader() {
+		YiLinR2dbcProperties.BatchLoad options = this.properties.getBatchLoad();
+		BatchLoader<ID, T> loader = new BatchLoader<>(this::findAllById, this.entity::getRequiredId,
+				context -> context.getOrDefault(TenantContext.TENANT_ID_KEY, ""),
+				options.getMaxBatchSize(), options.getMaxWait());
+		this.disposables.add(loader);
+		return loader;
+	}
+
+	/**
+	 * 开启请求合并时, 相同 key 的并发读共享一次执行. key 中的条件已包含租户与逻辑删除条件.
+	 */
+	private <R> Mono<R> coalesce(String key, Supplier<Mono<R>> source) {
+		return (this.singleFlight != null) ? this.singleFlight.mono(key, source) : source.get();
+	}
+
+	/**
+	 * 合并返回实体的读, 每个订阅者收到共享实体的副本, 调用方修改实体不会影响其他调用方.
+	 */
+	private Mono<T> coalesceEntity(String key, Supplier<Mono<T>> source) {
+		return (this.singleFlight != null) ? this.singleFlight.mono(key, source, this::copy) : source.get();
+	}
+
+	private Flux<T> coalesceEntities(String key, Supplier<Flux<T>> source) {
+		return (this.singleFlight != null) ? this.singleFlight.flux(key, source, this::copy) : source.get();
+	}
+
+	private T copy(T source) {
+		return this.copier.get().copy(source);
+	}
+
+	private static String getQueryKey(Query query) {
+		return query.getColumns() + "|" + query.getSort() + "|" + query.getLimit() + "|" + query.getOffset() + "|"
+				+ query.getCriteria().map(Object::toString).orElse("");
+	}
+
+	/**
+	 * 实体存在缓存且不是包含逻辑删除数据的视图时使用缓存.
+	 */
+	private boolean isCaching() {
+		return this.entityCache != null && !this.includeDeleted;
+	}
+
+	/**
+	 * 先从实体缓存中查找, 未命中时查询并缓存结果. 缓存的实体与当前租户不一致时按未命中处理.
+	 * 查询期间条目被清除时不缓存查询结果, 缓存与返回的都是实体的副本, 调用方修改返回的实体不会影响缓存.
+	 * <p>查询不标记只读, 在主库执行: 从库存在复制延迟, 写入清除条目后从从库读取的旧数据会以新的代数写入缓存.
+	 */
+	private Mono<T> findCached(ID id, Mono<T> select) {
+		EntityCache cache = this.entityCache;
+		return Mono.defer(() -> {
+			long generation = cache.getGeneration(id);
+			Object cached = cache.get(id);
+			if (cached == null) {
+				return select.doOnNext(found -> cache.put(id, this.copier.get().copy(found), generation));
+			}
+			T found = this.copier.get().copy(this.entity.getJavaType().cast(cached));
+			if (!this.metadata.hasTenantId()) {
+				return Mono.just(found);
+			}
+			RelationalPersistentEntity<T> persistentEntity = getPersistentEntity();
+			Object tenant = persistentEntity.getPropertyAccessor(found)
+					.getProperty(persistentEntity.getRequiredPersistentProperty(this.metadata.getTenantId().get().property()));
+			return getCurrentTenantId().flatMap(tenantId -> tenantId.equals(String.valueOf(tenant)) ? Mono.just(found) : select);
+		});
+	}
+
+	/**
+	 * 写入结束时清除缓存, 存在事务时在事务结束后再清除一次.
+	 */
+	private <R> Mono<R> evicting(Mono<R> write, Runnable eviction) {
+		return (this.entityCache != null) ? EntityCacheUtils.evictAfterWrite(write, eviction) : write;
+	}
+
+	private void evict(@Nullable Object id) {
+		if (this.entityCache != null && id != null) {
+			this.entityCache.evict(id);
+		}
+	}
+
+	private void evictAll(List<T> objects) {
+		if (this.entityCache != null) {
+			objects.forEach(object -> evict(this.entity.getId(object)));
+		}
+	}
+
+	private void clearCache() {
+		if (this.entityCache != null) {
+			this.entityCache.clear();
+		}
+	}
+
+	private Criteria getIdCriteria(Object id) {
+		return Criteria.where(getIdProperty().getName()).is(id);
+	}
+
+	private final class DefaultAggregateSpec implements AggregateSpec {
+
+		private final Criteria criteria;
+
+		private final Aggregation aggregation;
+
+		DefaultAggregateSpec(Criteria criteria, Aggregation aggregation) {
+			this.criteria = criteria;
+			this.aggregation = aggregation;
+		}
+
+		@Override
+		public AggregateSpec groupBy(String... properties) {
+			return new DefaultAggregateSpec(this.criteria, this.aggregation.groupBy(properties));
+		}
+
+		@Override
+		public AggregateSpec count() {
+			return with(Aggregation.Function.COUNT, null, null);
+		}
+
+		@Override
+		public AggregateSpec countAs(String alias) {
+			return with(Aggregation.Function.COUNT, null, alias);
+		}
+
+		@Override
+		public AggregateSpec sum(String property) {
+			return with(Aggregation.Function.SUM, property, null);
+		}
+
+		@Override
+		public AggregateSpec sum(String property, String alias) {
+			return with(Aggregation.Function.SUM, property, alias);
+		}
+
+		@Override
+		public AggregateSpec avg(String property) {
+			return with(Aggregation.Function.AVG, property, null);
+		}
+
+		@Override
+		public AggregateSpec avg(String property, String alias) {
+			return with(Aggregation.Function.AVG, property, alias);
+		}
+
+		@Override
+		public AggregateSpec min(String property) {
+			return with(Aggregation.Function.MIN, property, null);
+		}
+
+		@Override
+		public AggregateSpec min(String property, String alias) {
+			return with(Aggregation.Function.MIN, property, alias);
+		}
+
+		@Override
+		public AggregateSpec max(String property) {
+			return with(Aggregation.Function.MAX, property, null);
+		}
+
+		@Override
+		public AggregateSpec max(String property, String alias) {
+			return with(Aggregation.Function.MAX, property, alias);
+		}
+
+		@Override
+		public Flux<Map<String, Object>> all() {
+			List<String> names = this.aggregation.getNames();
+			return doAggregate(this.criteria, this.aggregation, (row, rowMetadata) -> {
+				Map<String, Object> result = new LinkedHashMap<>();
+				for (int i = 0; i < names.size(); i++) {
+					result.put(names.get(i), row.get(i));
+				}
+				return result;
+			});
+		}
+
+		@Override
+		public <R> Flux<R> as(Class<R> resultType) {
+			Assert.notNull(resultType, "Result type must not be null");
+			return doAggregate(this.criteria, this.aggregation,
+					(row, rowMetadata) -> YiLinR2dbcRepositoryImpl.this.converter.read(resultType, row, rowMetadata));
+		}
+
+		private AggregateSpec with(Aggregation.Function function, @Nullable String property, @Nullable String alias) {
+			return new DefaultAggregateSpec(this.criteria, this.aggregation.with(function, property, alias));
+		}
 	}
 }
@@ -0,0 +1,108 @@
+package com.yilin.reactive.r2dbc.repository;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+import org.springframework.data.mapping.callback.ReactiveEntityCallbacks;
+import org.springframework.lang.Nullable;
+
+import com.yilin.reactive.commons.id.SnowflakeIdGenerator;
+import com.yilin.reactive.r2dbc.cache.EntityCacheManager;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.ChunkRecorder;
+import com.yilin.reactive.r2dbc.core.NamedSqlRegistry;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 创建 {@link YiLinR2dbcRepositoryImpl} 所需的可选组件, 由仓库工厂 Bean 填充一次后传给每个仓库.
+ * 未配置的组件为 {@literal null}, 对应的功能不可用.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/14 9:30
+ * @since 2024.0.1
+ */
+public class YiLinR2dbcRepositoryOptions {
+
+	private YiLinR2dbcProperties properties = new YiLinR2dbcProperties();
+
+	private EntityCacheManager entityCacheManager = new EntityCacheManager();
+
+	@Nullable
+	private NamedSqlRegistry namedSqlRegistry;
+
+	@Nullable
+	private SnowflakeIdGenerator idGenerator;
+
+	@Nullable
+	private ReactiveEntityCallbacks entityCallbacks;
+
+	private ChunkRecorder chunkRecorder = ChunkRecorder.NONE;
+
+	private final Disposable.Composite disposables = Disposables.composite();
+
+	public YiLinR2dbcProperties getProperties() {
+		return properties;
+	}
+
+	public YiLinR2dbcRepositoryOptions setProperties(YiLinR2dbcProperties properties) {
+		this.properties = properties;
+		return this;
+	}
+
+	public EntityCacheManager getEntityCacheManager() {
+		return entityCacheManager;
+	}
+
+	public YiLinR2dbcRepositoryOptions setEntityCacheManager(EntityCacheManager entityCacheManager) {
+		this.entityCacheManager = entityCacheManager;
+		return this;
+	}
+
+	@Nullable
+	public NamedSqlRegistry getNamedSqlRegistry() {
+		return namedSqlRegistry;
+	}
+
+	public YiLinR2dbcRepositoryOptions setNamedSqlRegistry(@Nullable NamedSqlRegistry namedSqlRegistry) {
+		this.namedSqlRegistry = namedSqlRegistry;
+		return this;
+	}
+
+	@Nullable
+	public SnowflakeIdGenerator getIdGenerator() {
+		return idGenerator;
+	}
+
+	public YiLinR2dbcRepositoryOptions setIdGenerator(@Nullable SnowflakeIdGenerator idGenerator) {
+		this.idGenerator = idGenerator;
+		return this;
+	}
+
+	@Nullable
+	public ReactiveEntityCallbacks getEntityCallbacks() {
+		return entityCallbacks;
+	}
+
+	public YiLinR2dbcRepositoryOptions setEntityCallbacks(@Nullable ReactiveEntityCallbacks entityCallbacks) {
+		this.entityCallbacks = entityCallbacks;
+		return this;
+	}
+
+	public ChunkRecorder getChunkRecorder() {
+		return chunkRecorder;
+	}
+
+	public YiLinR2dbcRepositoryOptions setChunkRecorder(ChunkRecorder chunkRecorder) {
+		this.chunkRecorder = chunkRecorder;
+		return this;
+	}
+
+	/**
+	 * 仓库创建的需要释放的资源, 如批量加载器的订阅, 由仓库工厂 Bean 销毁时释放.
+	 * @return /
+	 */
+	public Disposable.Composite getDisposables() {
+		return disposables;
+	}
+}
@@ -4,15 +4,23 @@ import reactor.core.publisher.Mono;
 
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
 import org.springframework.data.r2dbc.repository.query.AbstractR2dbcQuery;
-import org.springframework.data.r2dbc.repository.query.R2dbcQueryMethod;
 import org.springframework.data.relational.repository.query.RelationalParameterAccessor;
 import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.persistent.enums.DeleteStatus;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.EntityMetadata;
+import com.yilin.reactive.r2dbc.core.TenantContext;
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
  *
- * <p> Description:
+ * <p> Description: 标注了 {@link com.yilin.reactive.persistent.annotations.LogicDelete} 的仓库方法,
+ * 按方法名中 {@code By} 之后的条件逻辑删除, 如 {@code logicDeleteByName(String name)}.
  *
  * @author jcohy
  * @version 2024.0.1 2023/8/2 17:00
@@ -20,13 +28,28 @@ import org.springframework.r2dbc.core.PreparedOperation;
  */
 public class LogicDeleteR2dbcQuery extends AbstractR2dbcQuery {
 
-	public LogicDeleteR2dbcQuery(R2dbcQueryMethod method, R2dbcEntityOperations entityOperations, R2dbcConverter converter) {
+	private final StatementTemplate template;
+
+	private final ReactiveDataAccessStrategy dataAccessStrategy;
+
+	private final YiLinR2dbcProperties properties;
+
+	public LogicDeleteR2dbcQuery(YiLinR2dbcQueryMethod method, R2dbcEntityOperations entityOperations,
+			R2dbcConverter converter, EntityMetadata metadata, YiLinR2dbcProperties properties) {
 		super(method, entityOperations, converter);
+		Assert.isTrue(metadata.hasLogicDelete(), () -> "@LogicDelete field must not be null on " + metadata.getType().getName());
+		this.dataAccessStrategy = entityOperations.getDataAccessStrategy();
+		this.properties = properties;
+		this.template = StatementTemplate.update(method, method.getEntityInformation().getTableEntity(), metadata,
+				this.dataAccessStrategy,
+				DialectResolver.getDialect(entityOperations.getDatabaseClient().getConnectionFactory()).getBindMarkersFactory(),
+				metadata.getLogicDelete().get(), -1, DeleteStatus.DELETED.getStatus());
+		method.setStatementTemplate(this.template);
 	}
 
 	@Override
 	protected boolean isModifyingQuery() {
-		return getQueryMethod().isModifyingQuery();
+		return true;
 	}
 
 	@Override
@@ -41,8 +64,11 @@ public class LogicDeleteR2dbcQuery extends AbstractR2dbcQuery {
 
 	@Override
 	protected Mono<PreparedOperation<?>> createQuery(RelationalParameterAccessor accessor) {
-		var entityMetadata = getQueryMethod().getEntityInformation();
-		entityMetadata.getTableEntity().getPersistentProperty("deleted");
-		return null;
+		if (!this.template.isTenantAware()) {
+			return Mono.just(this.template.bind(accessor, null, this.dataAccessStrategy));
+		}
+		return TenantContext.getTenantId()
+				.defaultIfEmpty(this.properties.getTenant().getDefaultTenantId())
+				.map(tenantId -> this.template.bind(accessor, tenantId, this.dataAccessStrategy));
 	}
 }
@@ -0,0 +1,247 @@
+package com.yilin.reactive.r2dbc.repository.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.repository.query.R2dbcQueryMethod;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.relational.repository.query.RelationalParameterAccessor;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+import com.yilin.reactive.r2dbc.core.EntityMetadata;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 预编译的 UPDATE 语句模板. 在仓库启动时根据方法名渲染 SQL 与绑定标记顺序,
+ * 调用时只绑定参数, 不再拼接 SQL. 方法名中 {@code By} 之后的部分按派生查询解析为条件,
+ * 支持 {@code =, !=, >, >=, <, <=, LIKE, NOT LIKE, IS NULL, IS NOT NULL, TRUE, FALSE}.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/23 10:30
+ * @since 2024.0.1
+ */
+public final class StatementTemplate {
+
+	private static final int TENANT = -1;
+
+	private static final int CONSTANT = -2;
+
+	private final String sql;
+
+	private final List<Binding> bindings;
+
+	private final boolean tenantAware;
+
+	private StatementTemplate(String sql, List<Binding> bindings, boolean tenantAware) {
+		this.sql = sql;
+		this.bindings = bindings;
+		this.tenantAware = tenantAware;
+	}
+
+	/**
+	 * 创建 {@code UPDATE table SET column = ? WHERE ...} 模板. 实体存在租户字段时条件前追加 {@code tenant_id = ?}.
+	 * @param method 仓库方法
+	 * @param entity 实体
+	 * @param metadata 实体元数据
+	 * @param strategy dataAccessStrategy
+	 * @param markersFactory 方言的绑定标记
+	 * @param column 更新的列
+	 * @param valueParameter 更新值对应的方法参数下标, 为负数时使用 {@code constant}
+	 * @param constant 更新值常量
+	 * @return /
+	 */
+	static StatementTemplate update(R2dbcQueryMethod method, RelationalPersistentEntity<?> entity,
+			EntityMetadata metadata, ReactiveDataAccessStrategy strategy, BindMarkersFactory markersFactory,
+			EntityMetadata.Column column, int valueParameter, @Nullable Object constant) {
+		PartTree tree = getPartTree(method.getName(), entity.getType());
+		List<PartTree.OrPart> orParts = (tree != null) ? tree.toList() : List.of();
+		boolean tenantAware = metadata.hasTenantId();
+
+		Builder builder = new Builder(markersFactory.create());
+		builder.append("UPDATE ").append(strategy.toSql(entity.getTableName()))
+				.append(" SET ").append(strategy.toSql(column.name())).append(" = ")
+				.marker((valueParameter >= 0) ? valueParameter : CONSTANT, constant,
+						entity.getRequiredPersistentProperty(column.property()).getType());
+		if (tenantAware || !orParts.isEmpty()) {
+			builder.append(" WHERE ");
+		}
+		if (tenantAware) {
+			EntityMetadata.Column tenant = metadata.getTenantId().get();
+			builder.append(strategy.toSql(tenant.name())).append(" = ")
+					.marker(TENANT, null, entity.getRequiredPersistentProperty(tenant.property()).getType());
+			if (!orParts.isEmpty()) {
+				builder.append(" AND ");
+			}
+		}
+		boolean grouped = tenantAware && orParts.size() > 1;
+		builder.append(grouped ? "(" : "");
+		int predicateArguments = appendPredicate(builder, orParts, entity, strategy, method.getName());
+		builder.append(grouped ? ")" : "");
+
+		int bindableParameters = method.getParameters().getBindableParameters().getNumberOfParameters();
+		int expected = predicateArguments + ((valueParameter >= 0) ? 1 : 0);
+		if (bindableParameters != expected) {
+			throw new InvalidDataAccessApiUsageException(String.format("Method %s expects %d parameters but declares %d",
+					method.getName(), expected, bindableParameters));
+		}
+		return new StatementTemplate(builder.toString(), builder.bindings, tenantAware);
+	}
+
+	@Nullable
+	private static PartTree getPartTree(String methodName, Class<?> type) {
+		int index = methodName.indexOf("By");
+		if (index < 0 || index + 2 >= methodName.length()) {
+			return null;
+		}
+		return new PartTree("findBy" + methodName.substring(index + 2), type);
+	}
+
+	/**
+	 * 渲染派生查询条件, 返回消费的方法参数数量.
+	 */
+	private static int appendPredicate(Builder builder, List<PartTree.OrPart> orParts, RelationalPersistentEntity<?> entity,
+			ReactiveDataAccessStrategy strategy, String methodName) {
+		int parameter = 0;
+		for (int i = 0; i < orParts.size(); i++) {
+			builder.append((i > 0) ? " OR " : "");
+			int index = 0;
+			for (Part part : orParts.get(i)) {
+				builder.append((index++ > 0) ? " AND " : "");
+				RelationalPersistentProperty property = entity.getRequiredPersistentProperty(part.getProperty().getSegment());
+				Class<?> type = property.getType();
+				builder.append(strategy.toSql(property.getColumnName()));
+				switch (part.getType()) {
+					case SIMPLE_PROPERTY -> builder.append(" = ").marker(parameter++, null, type);
+					case NEGATING_SIMPLE_PROPERTY -> builder.append(" != ").marker(parameter++, null, type);
+					case GREATER_THAN, AFTER -> builder.append(" > ").marker(parameter++, null, type);
+					case GREATER_THAN_EQUAL -> builder.append(" >= ").marker(parameter++, null, type);
+					case LESS_THAN, BEFORE -> builder.append(" < ").marker(parameter++, null, type);
+					case LESS_THAN_EQUAL -> builder.append(" <= ").marker(parameter++, null, type);
+					case LIKE -> builder.append(" LIKE ").marker(parameter++, null, String.class);
+					case NOT_LIKE -> builder.append(" NOT LIKE ").marker(parameter++, null, String.class);
+					case IS_NULL -> builder.append(" IS NULL");
+					case IS_NOT_NULL -> builder.append(" IS NOT NULL");
+					case TRUE -> builder.append(" = TRUE");
+					case FALSE -> builder.append(" = FALSE");
+					default -> throw new InvalidDataAccessApiUsageException(
+							"Part type " + part.getType() + " is not supported by " + methodName);
+				}
+			}
+		}
+		return parameter;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	/**
+	 * 是否需要绑定租户 ID.
+	 * @return /
+	 */
+	public boolean isTenantAware() {
+		return tenantAware;
+	}
+
+	/**
+	 * 绑定参数.
+	 * @param accessor 方法参数
+	 * @param tenantId 租户 ID, 模板不需要租户时为 {@literal null}
+	 * @param strategy 用于转换参数值
+	 * @return /
+	 */
+	public PreparedOperation<String> bind(RelationalParameterAccessor accessor, @Nullable String tenantId,
+			ReactiveDataAccessStrategy strategy) {
+		Parameter[] values = new Parameter[this.bindings.size()];
+		for (int i = 0; i < values.length; i++) {
+			Binding binding = this.bindings.get(i);
+			Object value = switch (binding.parameter()) {
+				case TENANT -> tenantId;
+				case CONSTANT -> binding.constant();
+				default -> accessor.getBindableValue(binding.parameter());
+			};
+			values[i] = strategy.getBindValue(Parameter.fromOrEmpty(value, binding.type()));
+		}
+		return new BoundOperation(this, values);
+	}
+
+	@Override
+	public String toString() {
+		return this.sql;
+	}
+
+	private record Binding(BindMarker marker, int parameter, @Nullable Object constant, Class<?> type) {
+	}
+
+	private record BoundOperation(StatementTemplate template, Parameter[] values) implements PreparedOperation<String> {
+
+		@Override
+		public String getSource() {
+			return this.template.sql;
+		}
+
+		@Override
+		public void bindTo(BindTarget target) {
+			for (int i = 0; i < this.values.length; i++) {
+				BindMarker marker = this.template.bindings.get(i).marker();
+				Parameter value = this.values[i];
+				if (value.hasValue()) {
+					marker.bind(target, value.getValue());
+				}
+				else {
+					marker.bindNull(target, value.getType());
+				}
+			}
+		}
+
+		@Override
+		public String toQuery() {
+			return this.template.sql;
+		}
+	}
+
+	/**
+	 * 按渲染顺序分配绑定标记, 绑定顺序与 SQL 中的占位符顺序一致.
+	 */
+	private static final class Builder {
+
+		private final BindMarkers markers;
+
+		private final List<Binding> bindings = new ArrayList<>();
+
+		private final StringBuilder sql = new StringBuilder();
+
+		Builder(BindMarkers markers) {
+			this.markers = markers;
+		}
+
+		Builder append(String text) {
+			this.sql.append(text);
+			return this;
+		}
+
+		Builder marker(int parameter, @Nullable Object constant, Class<?> type) {
+			BindMarker marker = this.markers.next();
+			this.bindings.add(new Binding(marker, parameter, constant, type));
+			this.sql.append(marker.getPlaceholder());
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return this.sql.toString();
+		}
+	}
+}
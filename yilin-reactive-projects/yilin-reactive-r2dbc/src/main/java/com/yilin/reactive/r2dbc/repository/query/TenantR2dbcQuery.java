@@ -1,44 +1,98 @@
 package com.yilin.reactive.r2dbc.repository.query;
 
+import java.util.Collections;
+
 import reactor.core.publisher.Mono;
 
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.repository.query.AbstractR2dbcQuery;
+import org.springframework.data.r2dbc.repository.query.R2dbcQueryCreator;
 import org.springframework.data.r2dbc.repository.query.R2dbcQueryMethod;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.repository.query.RelationalEntityMetadata;
 import org.springframework.data.relational.repository.query.RelationalParameterAccessor;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.lang.Nullable;
 import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.util.Assert;
+
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.EntityMetadata;
+import com.yilin.reactive.r2dbc.core.TenantContext;
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
- * <p> Description:
+ * <p> Description: 标注了 {@link com.yilin.reactive.persistent.annotations.TenantId} 的派生查询.
+ * 按方法名解析查询条件后, 在条件前追加 Reactor Context 中的租户条件 {@code tenant_id = ?}.
  *
  * @author jcohy
  * @version 2024.0.1 2023/8/3 17:23
  * @since 2024.0.1
  */
 public class TenantR2dbcQuery extends AbstractR2dbcQuery {
-	public TenantR2dbcQuery(R2dbcQueryMethod method, R2dbcEntityOperations entityOperations, R2dbcConverter converter) {
+
+	private final EntityMetadata metadata;
+
+	private final YiLinR2dbcProperties properties;
+
+	private final ReactiveDataAccessStrategy dataAccessStrategy;
+
+	private final PartTree tree;
+
+	public TenantR2dbcQuery(R2dbcQueryMethod method, R2dbcEntityOperations entityOperations, R2dbcConverter converter,
+			EntityMetadata metadata, YiLinR2dbcProperties properties) {
 		super(method, entityOperations, converter);
+		Assert.isTrue(metadata.hasTenantId(), () -> "@TenantId field must not be null on " + metadata.getType().getName());
+		this.metadata = metadata;
+		this.properties = properties;
+		this.dataAccessStrategy = entityOperations.getDataAccessStrategy();
+		this.tree = new PartTree(method.getName(), method.getEntityInformation().getJavaType());
 	}
 
 	@Override
 	protected boolean isModifyingQuery() {
-		return false;
+		return this.tree.isDelete();
 	}
 
 	@Override
 	protected boolean isCountQuery() {
-		return false;
+		return this.tree.isCountProjection();
 	}
 
 	@Override
 	protected boolean isExistsQuery() {
-		return false;
+		return this.tree.isExistsProjection();
 	}
 
 	@Override
 	protected Mono<PreparedOperation<?>> createQuery(RelationalParameterAccessor accessor) {
-		return null;
+		RelationalEntityMetadata<?> entityMetadata = getQueryMethod().getEntityInformation();
+		return TenantContext.getTenantId()
+				.defaultIfEmpty(this.properties.getTenant().getDefaultTenantId())
+				.map(tenantId -> new TenantQueryCreator(this.tree, this.dataAccessStrategy, entityMetadata, accessor,
+						Criteria.where(this.metadata.getTenantId().get().property()).is(tenantId))
+						.createQuery(accessor.getSort()));
+	}
+
+	/**
+	 * 在派生查询条件前追加租户条件.
+	 */
+	private static class TenantQueryCreator extends R2dbcQueryCreator {
+
+		private final Criteria tenant;
+
+		TenantQueryCreator(PartTree tree, ReactiveDataAccessStrategy dataAccessStrategy,
+				RelationalEntityMetadata<?> entityMetadata, RelationalParameterAccessor accessor, Criteria tenant) {
+			super(tree, dataAccessStrategy, entityMetadata, accessor, Collections.emptyList());
+			this.tenant = tenant;
+		}
+
+		@Override
+		protected PreparedOperation<?> complete(@Nullable Criteria criteria, Sort sort) {
+			return super.complete((criteria == null || criteria.isEmpty()) ? this.tenant : this.tenant.and(criteria), sort);
+		}
 	}
 }
@@ -10,6 +10,7 @@ import org.springframework.data.r2dbc.repository.query.R2dbcQueryMethod;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
 import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
 import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.lang.Nullable;
 
 import com.yilin.reactive.persistent.annotations.LogicDelete;
 import com.yilin.reactive.persistent.annotations.Status;
@@ -31,6 +32,9 @@ public class YiLinR2dbcQueryMethod extends R2dbcQueryMethod {
 
 	private final Optional<Status> status;
 
+	@Nullable
+	private StatementTemplate statementTemplate;
+
 	public YiLinR2dbcQueryMethod(Method method, RepositoryMetadata metadata, ProjectionFactory projectionFactory, MappingContext<? extends RelationalPersistentEntity<?>, ? extends RelationalPersistentProperty> mappingContext) {
 		super(method, metadata, projectionFactory, mappingContext);
 		this.logicDelete = Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(method, LogicDelete.class));
@@ -50,6 +54,18 @@ public class YiLinR2dbcQueryMethod extends R2dbcQueryMethod {
 		return status;
 	}
 
+	/**
+	 * 获取启动时预编译的语句模板.
+	 * @return /
+	 */
+	public Optional<StatementTemplate> getStatementTemplate() {
+		return Optional.ofNullable(statementTemplate);
+	}
+
+	void setStatementTemplate(StatementTemplate statementTemplate) {
+		this.statementTemplate = statementTemplate;
+	}
+
 	/**
 	 * @return 返回 {@literal true} ,则方法使用 {@link LogicDelete} 注解.
 	 */
@@ -0,0 +1,64 @@
+package com.yilin.reactive.r2dbc.repository.support;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.yilin.reactive.r2dbc.core.ChunkRecorder;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 以 Micrometer 指标记录分块操作, 以 {@code entity}, {@code operation} 标签区分:
+ * {@code yilin.r2dbc.repository.chunks} (每块耗时), {@code yilin.r2dbc.repository.chunk.rows} (每块影响的行数).
+ * 两者的总量之比即删除速率.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/4/2 14:30
+ * @since 2024.0.1
+ */
+public class MicrometerChunkRecorder implements ChunkRecorder {
+
+	private static final String PREFIX = "yilin.r2dbc.repository";
+
+	private final MeterRegistry registry;
+
+	private final Map<String, ChunkMeters> meters = new ConcurrentHashMap<>();
+
+	public MicrometerChunkRecorder(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void record(Class<?> type, String operation, long rows, Duration elapsed) {
+		ChunkMeters chunk = this.meters.computeIfAbsent(type.getName() + '|' + operation,
+				key -> new ChunkMeters(type.getSimpleName(), operation));
+		chunk.latency.record(elapsed);
+		chunk.rows.record(rows);
+	}
+
+	/**
+	 * 一种实体一种操作的指标, 创建一次后复用.
+	 */
+	private final class ChunkMeters {
+
+		private final Timer latency;
+
+		private final DistributionSummary rows;
+
+		ChunkMeters(String entity, String operation) {
+			this.latency = Timer.builder(PREFIX + ".chunks")
+					.description("Time taken by each chunk of a chunked repository operation.")
+					.tags("entity", entity, "operation", operation)
+					.register(registry);
+			this.rows = DistributionSummary.builder(PREFIX + ".chunk.rows")
+					.description("Number of rows affected by each chunk of a chunked repository operation.")
+					.tags("entity", entity, "operation", operation)
+					.register(registry);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package com.yilin.reactive.r2dbc.repository.support;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.lang.Nullable;
+
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.connection.QueryRecorder;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 为仓库代理添加指标拦截器, 包括 {@link com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepository}
+ * 的方法与派生查询. 返回 {@link Mono} 或 {@link Flux} 的方法在每次订阅时记录, 以 {@code repository}, {@code method} 标签区分,
+ * {@code method} 为方法名与参数类型, 如 {@code findByQuery(Criteria,Sort)}, 重载方法分别记录:
+ * {@code yilin.r2dbc.repository.invocations} (耗时, outcome=SUCCESS/ERROR/CANCELLED, exception),
+ * {@code yilin.r2dbc.repository.rows} (返回的元素数). 配置了慢查询阈值时, 超过阈值的调用记录警告日志,
+ * 日志中的 SQL 由 {@link com.yilin.reactive.r2dbc.connection.QueryRecordingConnectionFactory} 记录.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/6 9:40
+ * @since 2024.0.1
+ */
+public class RepositoryMetricsPostProcessor implements RepositoryProxyPostProcessor {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepositoryMetricsPostProcessor.class);
+
+	private static final String PREFIX = "yilin.r2dbc.repository";
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	private final YiLinR2dbcProperties.Metrics properties;
+
+	public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry, YiLinR2dbcProperties.Metrics properties) {
+		this.registry = registry;
+		this.properties = properties;
+	}
+
+	@Override
+	public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+		MeterRegistry registry = this.registry.getIfAvailable();
+		if (registry != null) {
+			factory.addAdvice(getInterceptor(registry, repositoryInformation.getRepositoryInterface().getSimpleName()));
+		}
+	}
+
+	MethodInterceptor getInterceptor(MeterRegistry registry, String repository) {
+		return new MetricsInterceptor(registry, repository);
+	}
+
+	private class MetricsInterceptor implements MethodInterceptor {
+
+		private final MeterRegistry registry;
+
+		private final String repository;
+
+		private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+		MetricsInterceptor(MeterRegistry registry, String repository) {
+			this.registry = registry;
+			this.repository = repository;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			Object result = invocation.proceed();
+			if (!(result instanceof Mono<?>) && !(result instanceof Flux<?>)) {
+				return result;
+			}
+			MethodMeters method = this.meters.computeIfAbsent(invocation.getMethod(), MethodMeters::new);
+			if (result instanceof Mono<?> mono) {
+				return Mono.defer(() -> {
+					Recording recording = new Recording(method);
+					return mono.doOnNext(recording::onNext)
+							.doOnError(recording::onError)
+							.doFinally(recording::finish)
+							.contextWrite(recording::attach);
+				});
+			}
+			if (result instanceof Flux<?> flux) {
+				return Flux.defer(() -> {
+					Recording recording = new Recording(method);
+					return flux.doOnNext(recording::onNext)
+							.doOnError(recording::onError)
+							.doFinally(recording::finish)
+							.contextWrite(recording::attach);
+				});
+			}
+			return result;
+		}
+
+		/**
+		 * 一个方法的指标, 按方法创建一次, 耗时按 outcome 与 exception 缓存.
+		 */
+		private final class MethodMeters {
+
+			private final String signature;
+
+			private final DistributionSummary rows;
+
+			private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+			MethodMeters(Method method) {
+				this.signature = method.getName() + Arrays.stream(method.getParameterTypes())
+						.map(Class::getSimpleName)
+						.collect(Collectors.joining(",", "(", ")"));
+				this.rows = DistributionSummary.builder(PREFIX + ".rows")
+						.description("Number of rows returned by repository method invocations.")
+						.tags("repository", repository, "method", this.signature)
+						.register(registry);
+			}
+
+			Timer getTimer(String outcome, String exception) {
+				return this.timers.computeIfAbsent(outcome + '|' + exception, key -> Timer.builder(PREFIX + ".invocations")
+						.description("Time taken by repository method invocations.")
+						.tags("repository", repository, "method", this.signature, "outcome", outcome, "exception", exception)
+						.publishPercentileHistogram(properties.isPercentileHistogram())
+						.register(registry));
+			}
+		}
+
+		/**
+		 * 一次订阅的记录, 信号按顺序到达, 不需要同步.
+		 */
+		private final class Recording {
+
+			private final MethodMeters method;
+
+			private final long start = System.nanoTime();
+
+			@Nullable
+			private final QueryRecorder recorder;
+
+			private long rows;
+
+			@Nullable
+			private Throwable error;
+
+			Recording(MethodMeters method) {
+				this.method = method;
+				this.recorder = (properties.getSlowQueryThreshold() != null) ? new QueryRecorder() : null;
+			}
+
+			void onNext(Object value) {
+				this.rows++;
+			}
+
+			void onError(Throwable ex) {
+				this.error = ex;
+			}
+
+			Context attach(Context context) {
+				return (this.recorder != null) ? this.recorder.attach(context) : context;
+			}
+
+			void finish(SignalType signal) {
+				long elapsed = System.nanoTime() - this.start;
+				String outcome = (this.error != null) ? "ERROR" : (signal == SignalType.CANCEL) ? "CANCELLED" : "SUCCESS";
+				this.method.getTimer(outcome, (this.error != null) ? this.error.getClass().getSimpleName() : "none")
+						.record(elapsed, TimeUnit.NANOSECONDS);
+				this.method.rows.record(this.rows);
+				Duration threshold = properties.getSlowQueryThreshold();
+				if (threshold != null && this.recorder != null && elapsed >= threshold.toNanos()) {
+					logger.warn("Slow repository method {}.{} took {} ms, outcome {}, {} rows, {} statements: {}", repository,
+							this.method.signature, TimeUnit.NANOSECONDS.toMillis(elapsed), outcome, this.rows,
+							this.recorder.getCount(), this.recorder.getStatements());
+				}
+			}
+		}
+	}
+}
@@ -2,6 +2,10 @@ package com.yilin.reactive.r2dbc.repository.support;
 
 import java.lang.reflect.Method;
 import java.util.Optional;
+import java.util.regex.Pattern;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.data.projection.ProjectionFactory;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
@@ -9,9 +13,16 @@ import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.repository.core.NamedQueries;
 import org.springframework.data.repository.core.RepositoryMetadata;
 import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethod;
 import org.springframework.data.repository.query.ReactiveQueryMethodEvaluationContextProvider;
 import org.springframework.data.repository.query.RepositoryQuery;
 
+import com.yilin.reactive.r2dbc.cache.EntityCache;
+import com.yilin.reactive.r2dbc.cache.EntityCacheManager;
+import com.yilin.reactive.r2dbc.cache.EntityCacheUtils;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.EntityMetadata;
+import com.yilin.reactive.r2dbc.core.EntityMetadataRegistry;
 import com.yilin.reactive.r2dbc.repository.NoQueryLookStrategyException;
 import com.yilin.reactive.r2dbc.repository.query.LogicDeleteR2dbcQuery;
 import com.yilin.reactive.r2dbc.repository.query.StatusR2dbcQuery;
@@ -28,6 +39,8 @@ import com.yilin.reactive.r2dbc.repository.query.YiLinR2dbcQueryMethod;
  */
 public class YiLinQueryLookupStrategy implements QueryLookupStrategy {
 
+	private static final Pattern DELETE_QUERY = Pattern.compile("^(delete|remove)(\\p{Lu}.*?)??By");
+
 	private final R2dbcEntityOperations entityOperations;
 
 	private final ReactiveQueryMethodEvaluationContextProvider evaluationContextProvider;
@@ -36,36 +49,97 @@ public class YiLinQueryLookupStrategy implements QueryLookupStrategy {
 
 	private final Optional<QueryLookupStrategy> queryLookupStrategy;
 
+	private final YiLinR2dbcProperties properties;
+
+	private final EntityCacheManager entityCacheManager;
 
 	public YiLinQueryLookupStrategy(R2dbcEntityOperations entityOperations,
 			ReactiveQueryMethodEvaluationContextProvider evaluationContextProvider, R2dbcConverter converter,
 			Optional<QueryLookupStrategy> queryLookupStrategy) {
+		this(entityOperations, evaluationContextProvider, converter, queryLookupStrategy, new YiLinR2dbcProperties());
+	}
+
+	public YiLinQueryLookupStrategy(R2dbcEntityOperations entityOperations,
+			ReactiveQueryMethodEvaluationContextProvider evaluationContextProvider, R2dbcConverter converter,
+			Optional<QueryLookupStrategy> queryLookupStrategy, YiLinR2dbcProperties properties) {
+		this(entityOperations, evaluationContextProvider, converter, queryLookupStrategy, properties, new EntityCacheManager());
+	}
+
+	public YiLinQueryLookupStrategy(R2dbcEntityOperations entityOperations,
+			ReactiveQueryMethodEvaluationContextProvider evaluationContextProvider, R2dbcConverter converter,
+			Optional<QueryLookupStrategy> queryLookupStrategy, YiLinR2dbcProperties properties,
+			EntityCacheManager entityCacheManager) {
 		this.entityOperations = entityOperations;
 		this.evaluationContextProvider = evaluationContextProvider;
 		this.converter = converter;
 		this.queryLookupStrategy = queryLookupStrategy;
+		this.properties = properties;
+		this.entityCacheManager = entityCacheManager;
 	}
 
 	@Override
 	public RepositoryQuery resolveQuery(
 			Method method, RepositoryMetadata metadata, ProjectionFactory factory, NamedQueries namedQueries) {
 		YiLinR2dbcQueryMethod queryMethod = new YiLinR2dbcQueryMethod(method, metadata, factory, this.converter.getMappingContext());
+		EntityMetadata entityMetadata = EntityMetadataRegistry.getMetadata(queryMethod.getEntityInformation().getTableEntity());
 
 		if (queryMethod.hasAnnotatedLogicDelete()) {
-			return new LogicDeleteR2dbcQuery(queryMethod, this.entityOperations, this.converter);
+			return evicting(new LogicDeleteR2dbcQuery(queryMethod, this.entityOperations, this.converter, entityMetadata,
+					this.properties), entityMetadata);
 		}
 		else if (queryMethod.hasAnnotatedTenant()) {
-			return new TenantR2dbcQuery(queryMethod, this.entityOperations, this.converter);
+			RepositoryQuery query = new TenantR2dbcQuery(queryMethod, this.entityOperations, this.converter, entityMetadata,
+					this.properties);
+			return isModifying(queryMethod) ? evicting(query, entityMetadata) : query;
 		}
 		else if (queryMethod.hasAnnotatedStatus()) {
-			return new StatusR2dbcQuery(queryMethod, this.entityOperations, this.converter);
+			return evicting(new StatusR2dbcQuery(queryMethod, this.entityOperations, this.converter, entityMetadata,
+					this.properties), entityMetadata);
 		}
 		else {
 			if (queryLookupStrategy.isPresent()) {
-				return queryLookupStrategy.get().resolveQuery(method, metadata, factory, namedQueries);
+				RepositoryQuery query = queryLookupStrategy.get().resolveQuery(method, metadata, factory, namedQueries);
+				return isModifying(queryMethod) ? evicting(query, entityMetadata) : query;
 			}
 		}
 		throw new NoQueryLookStrategyException("not has queryLookupStrategy!");
 	}
 
+	/**
+	 * 派生的删除查询与 {@code @Modifying} 查询会修改数据.
+	 */
+	private boolean isModifying(YiLinR2dbcQueryMethod queryMethod) {
+		return queryMethod.isModifyingQuery() || DELETE_QUERY.matcher(queryMethod.getName()).find();
+	}
+
+	/**
+	 * 按条件更新的查询无法确定影响的主键, 执行结束时清空实体缓存, 存在事务时在事务结束后再清空一次.
+	 */
+	private RepositoryQuery evicting(RepositoryQuery query, EntityMetadata entityMetadata) {
+		EntityCache cache = this.entityCacheManager.getCache(entityMetadata.getType());
+		return (cache != null) ? new EvictingRepositoryQuery(query, cache) : query;
+	}
+
+	private record EvictingRepositoryQuery(RepositoryQuery delegate, EntityCache cache) implements RepositoryQuery {
+
+		@Override
+		public Object execute(Object[] parameters) {
+			Object result = this.delegate.execute(parameters);
+			if (result instanceof Mono<?> mono) {
+				return EntityCacheUtils.evictAfterWrite(mono, this.cache::clear);
+			}
+			if (result instanceof Flux<?> flux) {
+				return EntityCacheUtils.afterCompletion(this.cache::clear).thenMany(flux)
+						.doFinally(signal -> this.cache.clear());
+			}
+			this.cache.clear();
+			return result;
+		}
+
+		@Override
+		public QueryMethod getQueryMethod() {
+			return this.delegate.getQueryMethod();
+		}
+	}
+
 }
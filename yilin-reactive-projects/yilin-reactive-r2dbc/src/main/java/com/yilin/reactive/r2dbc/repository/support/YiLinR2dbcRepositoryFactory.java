@@ -1,15 +1,24 @@
 package com.yilin.reactive.r2dbc.repository.support;
 
+import java.util.Optional;
+
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
-import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.data.relational.repository.query.RelationalEntityInformation;
+import org.springframework.data.repository.core.RepositoryInformation;
 import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryLookupStrategy.Key;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.data.repository.query.ReactiveQueryMethodEvaluationContextProvider;
+import org.springframework.lang.Nullable;
 import org.springframework.r2dbc.core.DatabaseClient;
 
 import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepositoryImpl;
+import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepositoryOptions;
 
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
@@ -22,12 +31,29 @@ import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepositoryImpl;
  */
 public class YiLinR2dbcRepositoryFactory extends R2dbcRepositoryFactory {
 
+	private final R2dbcEntityOperations operations;
+
+	private final YiLinR2dbcRepositoryOptions options;
+
 	public YiLinR2dbcRepositoryFactory(DatabaseClient databaseClient, R2dbcDialect dialect, R2dbcConverter converter) {
 		this(new R2dbcEntityTemplate(databaseClient, dialect,converter));
 	}
 
 	public YiLinR2dbcRepositoryFactory(R2dbcEntityOperations operations) {
+		this(operations, new YiLinR2dbcRepositoryOptions());
+	}
+
+	public YiLinR2dbcRepositoryFactory(R2dbcEntityOperations operations, YiLinR2dbcRepositoryOptions options) {
 		super(operations);
+		this.operations = operations;
+		this.options = options;
+	}
+
+	@Override
+	protected Object getTargetRepository(RepositoryInformation information) {
+		RelationalEntityInformation<?, ?> entityInformation = getEntityInformation(information.getDomainType());
+		return getTargetRepositoryViaReflection(information, entityInformation, this.operations,
+				this.operations.getConverter(), this.options);
 	}
 
 	@Override
@@ -35,5 +61,12 @@ public class YiLinR2dbcRepositoryFactory extends R2dbcRepositoryFactory {
 		return YiLinR2dbcRepositoryImpl.class;
 	}
 
-
+	@Override
+	protected Optional<QueryLookupStrategy> getQueryLookupStrategy(@Nullable Key key,
+			QueryMethodEvaluationContextProvider evaluationContextProvider) {
+		return Optional.of(new YiLinQueryLookupStrategy(this.operations,
+				(ReactiveQueryMethodEvaluationContextProvider) evaluationContextProvider, this.operations.getConverter(),
+				super.getQueryLookupStrategy(key, evaluationContextProvider), this.options.getProperties(),
+				this.options.getEntityCacheManager()));
+	}
 }
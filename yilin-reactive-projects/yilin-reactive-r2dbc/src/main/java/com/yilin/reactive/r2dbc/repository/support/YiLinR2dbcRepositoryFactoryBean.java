@@ -1,20 +1,33 @@
 package com.yilin.reactive.r2dbc.repository.support;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 import jakarta.annotation.Nonnull;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.callback.ReactiveEntityCallbacks;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
 import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactoryBean;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.RepositoryInformation;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
 import org.springframework.lang.NonNull;
-import org.springframework.lang.Nullable;
 import org.springframework.r2dbc.core.DatabaseClient;
 
+import com.yilin.reactive.commons.id.SnowflakeIdGenerator;
+import com.yilin.reactive.r2dbc.cache.EntityCacheManager;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.ChunkRecorder;
+import com.yilin.reactive.r2dbc.core.NamedSqlRegistry;
+import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepositoryOptions;
+
 /**
  * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
  *
@@ -24,8 +37,13 @@ import org.springframework.r2dbc.core.DatabaseClient;
  * @version 2024.0.1 2023/7/31 16:46
  * @since 2024.0.1
  */
-public class YiLinR2dbcRepositoryFactoryBean<T extends Repository<S, ID>, S, ID extends Serializable> extends R2dbcRepositoryFactoryBean<T, S, ID> {
+public class YiLinR2dbcRepositoryFactoryBean<T extends Repository<S, ID>, S, ID extends Serializable> extends R2dbcRepositoryFactoryBean<T, S, ID>
+		implements DisposableBean {
+
+
+	private final YiLinR2dbcRepositoryOptions options = new YiLinR2dbcRepositoryOptions();
 
+	private List<RepositoryProxyPostProcessor> proxyPostProcessors = Collections.emptyList();
 
 	/**
 	 * Creates a new {@link R2dbcRepositoryFactoryBean} for the given repository interface.
@@ -36,10 +54,83 @@ public class YiLinR2dbcRepositoryFactoryBean<T extends Repository<S, ID>, S, ID
 		super(repositoryInterface);
 	}
 
+	/**
+	 * 设置仓库配置, 未配置时使用默认值.
+	 * @param properties properties
+	 */
+	@Autowired(required = false)
+	public void setProperties(YiLinR2dbcProperties properties) {
+		this.options.setProperties(properties);
+	}
+
+	/**
+	 * 设置实体缓存管理器, 未配置时每个仓库工厂使用默认的 LRU 缓存.
+	 * @param entityCacheManager entityCacheManager
+	 */
+	@Autowired(required = false)
+	public void setEntityCacheManager(EntityCacheManager entityCacheManager) {
+		this.options.setEntityCacheManager(entityCacheManager);
+	}
+
+	/**
+	 * 设置命名 SQL 注册表, 未配置时不能使用 {@code execNamed}.
+	 * @param namedSqlRegistry namedSqlRegistry
+	 */
+	@Autowired(required = false)
+	public void setNamedSqlRegistry(NamedSqlRegistry namedSqlRegistry) {
+		this.options.setNamedSqlRegistry(namedSqlRegistry);
+	}
+
+	/**
+	 * 设置主键生成器, 配置后批量写入时为主键为空的实体预先生成主键.
+	 * @param idGenerator idGenerator
+	 */
+	@Autowired(required = false)
+	public void setIdGenerator(SnowflakeIdGenerator idGenerator) {
+		this.options.setIdGenerator(idGenerator);
+	}
+
+	/**
+	 * 设置分块操作的记录器, 未配置时不记录.
+	 * @param chunkRecorder chunkRecorder
+	 */
+	@Autowired(required = false)
+	public void setChunkRecorder(ChunkRecorder chunkRecorder) {
+		this.options.setChunkRecorder(chunkRecorder);
+	}
+
+	/**
+	 * 设置仓库代理的后置处理器, 如 {@link RepositoryMetricsPostProcessor}.
+	 * @param proxyPostProcessors proxyPostProcessors
+	 */
+	@Autowired(required = false)
+	public void setProxyPostProcessors(List<RepositoryProxyPostProcessor> proxyPostProcessors) {
+		this.proxyPostProcessors = proxyPostProcessors;
+	}
+
+	/**
+	 * 使用容器中的实体回调, 按租户更新实体时与 {@code R2dbcEntityTemplate} 一样执行审计等回调.
+	 * @param beanFactory beanFactory
+	 */
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		super.setBeanFactory(beanFactory);
+		this.options.setEntityCallbacks(ReactiveEntityCallbacks.create(beanFactory));
+	}
 
 	@Override
 	protected RepositoryFactorySupport getFactoryInstance(@Nonnull R2dbcEntityOperations operations) {
-		return new YiLinR2dbcRepositoryFactory(operations);
+		RepositoryFactorySupport factory = new YiLinR2dbcRepositoryFactory(operations, this.options);
+		this.proxyPostProcessors.forEach(factory::addRepositoryProxyPostProcessor);
+		return factory;
+	}
+
+	/**
+	 * 释放仓库创建的资源, 如批量加载器的订阅.
+	 */
+	@Override
+	public void destroy() {
+		this.options.getDisposables().dispose();
 	}
 
 	@Override
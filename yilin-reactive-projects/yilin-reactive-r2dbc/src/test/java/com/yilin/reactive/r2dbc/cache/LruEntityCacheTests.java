@@ -0,0 +1,91 @@
+package com.yilin.reactive.r2dbc.cache;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.yilin.reactive.persistent.annotations.EntityCacheable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/28 10:40
+ * @since 2024.0.1
+ */
+class LruEntityCacheTests {
+
+	@Test
+	void shouldEvictLeastRecentlyUsed() {
+		LruEntityCache cache = new LruEntityCache(2, Duration.ZERO);
+		cache.put(1, "a");
+		cache.put(2, "b");
+		assertThat(cache.get(1)).isEqualTo("a");
+		cache.put(3, "c");
+
+		assertThat(cache.get(2)).isNull();
+		assertThat(cache.get(1)).isEqualTo("a");
+		assertThat(cache.get(3)).isEqualTo("c");
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+		assertThat(cache.getHitCount()).isEqualTo(3);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldExpireAfterWrite() throws InterruptedException {
+		LruEntityCache cache = new LruEntityCache(10, Duration.ofMillis(10));
+		cache.put(1, "a");
+		Thread.sleep(20);
+
+		assertThat(cache.get(1)).isNull();
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldDropPutStartedBeforeEviction() {
+		LruEntityCache cache = new LruEntityCache(10, Duration.ZERO);
+		long generation = cache.getGeneration(1);
+		cache.evict(1);
+		cache.put(1, "stale", generation);
+
+		assertThat(cache.get(1)).isNull();
+
+		cache.put(1, "a", cache.getGeneration(1));
+		assertThat(cache.get(1)).isEqualTo("a");
+
+		generation = cache.getGeneration(1);
+		cache.clear();
+		cache.put(1, "stale", generation);
+		assertThat(cache.get(1)).isNull();
+	}
+
+	@Test
+	void shouldCreateCacheOnlyForAnnotatedEntities() {
+		EntityCacheManager manager = new EntityCacheManager();
+
+		assertThat(manager.getCache(Cached.class)).isNotNull().isSameAs(manager.getCache(Cached.class));
+		assertThat(manager.getCache(String.class)).isNull();
+		assertThat(manager.getCaches()).containsOnlyKeys(Cached.class);
+	}
+
+	@Test
+	void shouldRejectCacheWithoutTtl() {
+		EntityCacheManager manager = new EntityCacheManager();
+
+		assertThatIllegalStateException().isThrownBy(() -> manager.getCache(Unbounded.class))
+				.withMessageContaining("ttl");
+	}
+
+	@EntityCacheable(maximumSize = 10)
+	static class Cached {
+	}
+
+	@EntityCacheable(ttl = 0)
+	static class Unbounded {
+	}
+}
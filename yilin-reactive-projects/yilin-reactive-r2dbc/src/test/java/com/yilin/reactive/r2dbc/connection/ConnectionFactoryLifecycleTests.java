@@ -0,0 +1,104 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 包装 Spring Boot 创建的连接池后, 上下文能正常启动, 关闭时连接池被释放.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/20 10:15
+ * @since 2024.0.1
+ */
+class ConnectionFactoryLifecycleTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(R2dbcAutoConfiguration.class))
+			.withPropertyValues("spring.r2dbc.url=r2dbc:h2:mem:///lifecycle-primary");
+
+	@Test
+	void shouldDisposePoolWhenRoutingContextCloses() {
+		AtomicReference<ConnectionPool> pool = new AtomicReference<>();
+		this.contextRunner.withUserConfiguration(RoutingConfiguration.class)
+				.withPropertyValues("yilin.r2dbc.routing.enabled=true",
+						"yilin.r2dbc.routing.replicas[0].url=r2dbc:h2:mem:///lifecycle-replica")
+				.run(context -> {
+					assertThat(context).hasNotFailed();
+					ConnectionFactory connectionFactory = context.getBean(ConnectionFactory.class);
+					assertThat(connectionFactory).isInstanceOf(ReadWriteRoutingConnectionFactory.class);
+					pool.set(unwrapPool(connectionFactory));
+					DatabaseClient.create(connectionFactory).sql("SELECT 1").map((row, metadata) -> 1).one()
+							.as(StepVerifier::create)
+							.expectNext(1)
+							.verifyComplete();
+					assertThat(pool.get().isDisposed()).isFalse();
+				});
+		assertThat(pool.get().isDisposed()).isTrue();
+	}
+
+	@Test
+	void shouldDisposePoolWhenRecordingContextCloses() {
+		AtomicReference<ConnectionPool> pool = new AtomicReference<>();
+		this.contextRunner.withUserConfiguration(RoutingConfiguration.class, RecordingConfiguration.class)
+				.withPropertyValues("yilin.r2dbc.routing.enabled=true")
+				.run(context -> {
+					assertThat(context).hasNotFailed();
+					ConnectionFactory connectionFactory = context.getBean(ConnectionFactory.class);
+					assertThat(connectionFactory).isInstanceOf(QueryRecordingConnectionFactory.class);
+					assertThat(((QueryRecordingConnectionFactory) connectionFactory).unwrap())
+							.isInstanceOf(ReadWriteRoutingConnectionFactory.class);
+					pool.set(unwrapPool(connectionFactory));
+					assertThat(pool.get().isDisposed()).isFalse();
+				});
+		assertThat(pool.get().isDisposed()).isTrue();
+	}
+
+	private static ConnectionPool unwrapPool(ConnectionFactory connectionFactory) {
+		Object target = connectionFactory;
+		while (!(target instanceof ConnectionPool) && target instanceof Wrapped<?> wrapped) {
+			target = wrapped.unwrap();
+		}
+		assertThat(target).isInstanceOf(ConnectionPool.class);
+		return (ConnectionPool) target;
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableConfigurationProperties(YiLinR2dbcProperties.class)
+	static class RoutingConfiguration {
+
+		@Bean
+		static ReadWriteRoutingBeanPostProcessor readWriteRoutingBeanPostProcessor(
+				ObjectProvider<YiLinR2dbcProperties> properties) {
+			return new ReadWriteRoutingBeanPostProcessor(properties);
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class RecordingConfiguration {
+
+		@Bean
+		static QueryRecordingBeanPostProcessor queryRecordingBeanPostProcessor() {
+			return new QueryRecordingBeanPostProcessor();
+		}
+	}
+}
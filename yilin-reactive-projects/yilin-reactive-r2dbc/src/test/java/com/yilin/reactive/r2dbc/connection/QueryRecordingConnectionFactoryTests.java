@@ -0,0 +1,50 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/6 10:30
+ * @since 2024.0.1
+ */
+class QueryRecordingConnectionFactoryTests {
+
+	private final DatabaseClient client = DatabaseClient.create(new QueryRecordingConnectionFactory(
+			new H2ConnectionFactory(H2ConnectionConfiguration.builder().inMemory("recording").username("sa").build())));
+
+	@Test
+	void shouldRecordExecutedStatements() {
+		QueryRecorder recorder = new QueryRecorder();
+
+		this.client.sql("SELECT :value").bind("value", 1)
+				.map((row, metadata) -> row.get(0, Integer.class))
+				.one()
+				.contextWrite(recorder::attach)
+				.as(StepVerifier::create)
+				.expectNext(1)
+				.verifyComplete();
+
+		assertThat(recorder.getCount()).isOne();
+		assertThat(recorder.getStatements()).singleElement().asString().startsWith("SELECT $1");
+	}
+
+	@Test
+	void shouldExecuteWithoutRecorder() {
+		this.client.sql("SELECT 1")
+				.map((row, metadata) -> row.get(0, Integer.class))
+				.one()
+				.as(StepVerifier::create)
+				.expectNext(1)
+				.verifyComplete();
+	}
+}
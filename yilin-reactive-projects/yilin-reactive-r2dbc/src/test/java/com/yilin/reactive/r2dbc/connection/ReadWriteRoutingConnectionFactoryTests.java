@@ -0,0 +1,98 @@
+package com.yilin.reactive.r2dbc.connection;
+
+import java.util.List;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description: 以两个内存 H2 数据库分别作为主库与从库.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/27 11:05
+ * @since 2024.0.1
+ */
+class ReadWriteRoutingConnectionFactoryTests {
+
+	private ReadWriteRoutingConnectionFactory connectionFactory;
+
+	@BeforeEach
+	void before() {
+		ConnectionFactory primary = createConnectionFactory("primary");
+		ConnectionFactory replica = createConnectionFactory("replica");
+		createMarker(primary, "primary");
+		createMarker(replica, "replica");
+		this.connectionFactory = new ReadWriteRoutingConnectionFactory(primary, List.of(replica));
+	}
+
+	@Test
+	void shouldUsePrimaryByDefault() {
+		selectMarker(DatabaseClient.create(this.connectionFactory))
+				.as(StepVerifier::create)
+				.expectNext("primary")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldUseReplicaForReadOnly() {
+		selectMarker(DatabaseClient.create(this.connectionFactory))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly)
+				.as(StepVerifier::create)
+				.expectNext("replica")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldUsePrimaryInTransaction() {
+		TransactionalOperator operator = TransactionalOperator.create(new R2dbcTransactionManager(this.connectionFactory));
+		selectMarker(DatabaseClient.create(this.connectionFactory))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly)
+				.as(operator::transactional)
+				.as(StepVerifier::create)
+				.expectNext("primary")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldUsePrimaryWithoutReplicas() {
+		ReadWriteRoutingConnectionFactory connectionFactory = new ReadWriteRoutingConnectionFactory(
+				createConnectionFactory("primary"), List.of());
+		selectMarker(DatabaseClient.create(connectionFactory))
+				.contextWrite(ReadWriteRoutingConnectionFactory::markReadOnly)
+				.as(StepVerifier::create)
+				.expectNext("primary")
+				.verifyComplete();
+	}
+
+	private static Mono<String> selectMarker(DatabaseClient client) {
+		return client.sql("SELECT name FROM marker").map((row, metadata) -> row.get("name", String.class)).one();
+	}
+
+	private static void createMarker(ConnectionFactory connectionFactory, String name) {
+		DatabaseClient client = DatabaseClient.create(connectionFactory);
+		client.sql("DROP TABLE IF EXISTS marker").then()
+				.then(client.sql("CREATE TABLE marker (name varchar(32) NOT NULL)").then())
+				.then(client.sql("INSERT INTO marker (name) VALUES (:name)").bind("name", name).then())
+				.as(StepVerifier::create)
+				.verifyComplete();
+	}
+
+	private static ConnectionFactory createConnectionFactory(String name) {
+		return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+				.inMemory(name)
+				.username("sa")
+				.password("")
+				.option("DB_CLOSE_DELAY=-1").build());
+	}
+}
@@ -0,0 +1,159 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.util.context.ContextView;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 16:10
+ * @since 2024.0.1
+ */
+class BatchLoaderTests {
+
+	private final AtomicInteger queries = new AtomicInteger();
+
+	private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+	private BatchLoader<Integer, String> loader;
+
+	@AfterEach
+	void dispose() {
+		if (this.loader != null) {
+			this.loader.dispose();
+		}
+	}
+
+	@Test
+	void shouldMergeConcurrentLoadsIntoOneQuery() {
+		this.loader = createLoader(keys -> Flux.fromIterable(keys).map(String::valueOf), context -> "", 10,
+				Duration.ofMillis(200));
+
+		Flux.range(0, 5)
+				.flatMap(this.loader::load)
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(values -> assertThat(values).containsExactlyInAnyOrder("0", "1", "2", "3", "4"))
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(1);
+		assertThat(this.batches).singleElement().satisfies(keys -> assertThat(keys).containsExactlyInAnyOrder(0, 1, 2, 3, 4));
+	}
+
+	@Test
+	void shouldSplitBatchesByMaxBatchSize() {
+		this.loader = createLoader(keys -> Flux.fromIterable(keys).map(String::valueOf), context -> "", 10,
+				Duration.ofMillis(200));
+
+		Flux.range(0, 25)
+				.flatMap(this.loader::load)
+				.as(StepVerifier::create)
+				.expectNextCount(25)
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(3);
+		assertThat(this.batches).extracting(List::size).containsExactlyInAnyOrder(10, 10, 5);
+	}
+
+	@Test
+	void shouldQueryEachPartitionSeparately() {
+		Map<Object, List<Integer>> tenants = new ConcurrentHashMap<>();
+		this.loader = createLoader(keys -> Flux.deferContextual(context -> {
+			tenants.put(context.get("tenant"), keys);
+			return Flux.fromIterable(keys).map(String::valueOf);
+		}), context -> context.get("tenant"), 10, Duration.ofMillis(200));
+
+		Flux.merge(this.loader.load(1).contextWrite(context -> context.put("tenant", "a")),
+						this.loader.load(2).contextWrite(context -> context.put("tenant", "b")),
+						this.loader.load(3).contextWrite(context -> context.put("tenant", "a")))
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(values -> assertThat(values).containsExactlyInAnyOrder("1", "2", "3"))
+				.verifyComplete();
+
+		assertThat(this.queries).hasValue(2);
+		assertThat(tenants).containsOnlyKeys("a", "b");
+		assertThat(tenants.get("a")).containsExactlyInAnyOrder(1, 3);
+		assertThat(tenants.get("b")).containsExactly(2);
+	}
+
+	@Test
+	void shouldLoadAfterFailedQuery() {
+		this.loader = createLoader(keys -> keys.contains(0) ? Flux.error(new IllegalStateException("boom"))
+				: Flux.fromIterable(keys).map(String::valueOf), context -> "");
+
+		this.loader.load(0)
+				.as(StepVerifier::create)
+				.expectErrorMessage("boom")
+				.verify();
+
+		this.loader.load(1)
+				.as(StepVerifier::create)
+				.expectNext("1")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldLoadAfterFailedDispatch() {
+		this.loader = createLoader(keys -> Flux.fromIterable(keys).map(String::valueOf), context -> {
+			if (context.hasKey("fail")) {
+				throw new IllegalStateException("boom");
+			}
+			return "";
+		});
+
+		this.loader.load(0)
+				.contextWrite(context -> context.put("fail", true))
+				.as(StepVerifier::create)
+				.expectErrorMessage("boom")
+				.verify(Duration.ofSeconds(1));
+
+		this.loader.load(1)
+				.as(StepVerifier::create)
+				.expectNext("1")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldLoadIndividuallyAfterDispose() {
+		this.loader = createLoader(keys -> Flux.fromIterable(keys).map(String::valueOf), context -> "");
+		this.loader.dispose();
+
+		this.loader.load(1)
+				.as(StepVerifier::create)
+				.expectNext("1")
+				.verifyComplete();
+
+		assertThat(this.loader.isDisposed()).isTrue();
+		assertThat(this.queries).hasValue(1);
+	}
+
+	private BatchLoader<Integer, String> createLoader(Function<List<Integer>, Flux<String>> query,
+			Function<ContextView, Object> partitioner) {
+		return createLoader(query, partitioner, 10, Duration.ofMillis(10));
+	}
+
+	private BatchLoader<Integer, String> createLoader(Function<List<Integer>, Flux<String>> query,
+			Function<ContextView, Object> partitioner, int maxBatchSize, Duration maxWait) {
+		return new BatchLoader<>(keys -> {
+			this.queries.incrementAndGet();
+			this.batches.add(keys);
+			return query.apply(keys);
+		}, Integer::valueOf, partitioner, maxBatchSize, maxWait);
+	}
+}
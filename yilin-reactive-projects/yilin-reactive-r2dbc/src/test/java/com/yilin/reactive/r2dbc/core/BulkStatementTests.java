@@ -0,0 +1,107 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.r2dbc.core.DefaultReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.dialect.MySqlDialect;
+import org.springframework.data.r2dbc.dialect.PostgresDialect;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.Parameter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 10:30
+ * @since 2024.0.1
+ */
+class BulkStatementTests {
+
+	private static final SqlIdentifier TABLE = SqlIdentifier.unquoted("person");
+
+	private static final SqlIdentifier ID = SqlIdentifier.unquoted("id");
+
+	private static final SqlIdentifier NAME = SqlIdentifier.unquoted("name");
+
+	private static final SqlIdentifier TENANT_ID = SqlIdentifier.unquoted("tenant_id");
+
+	@Test
+	void shouldGuardPostgresUpsertByTenant() {
+		assertThat(upsert(PostgresDialect.INSTANCE, TENANT_ID).getSql())
+				.isEqualTo("INSERT INTO person (id, name, tenant_id) VALUES (:p0_0, :p0_1, :p0_2)"
+						+ " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name WHERE person.tenant_id = EXCLUDED.tenant_id");
+	}
+
+	@Test
+	void shouldGuardMySqlUpsertByTenant() {
+		assertThat(upsert(MySqlDialect.INSTANCE, TENANT_ID).getSql())
+				.isEqualTo("INSERT INTO person (id, name, tenant_id) VALUES (:p0_0, :p0_1, :p0_2)"
+						+ " ON DUPLICATE KEY UPDATE name = IF(tenant_id = VALUES(tenant_id), VALUES(name), name)");
+	}
+
+	@Test
+	void shouldMatchH2UpsertByIdAndTenant() {
+		assertThat(upsert(H2Dialect.INSTANCE, TENANT_ID).getSql())
+				.isEqualTo("MERGE INTO person (id, name, tenant_id) KEY (id, tenant_id) VALUES (:p0_0, :p0_1, :p0_2)");
+	}
+
+	@Test
+	void shouldUpsertWithoutTenant() {
+		assertThat(upsert(PostgresDialect.INSTANCE, null).getSql())
+				.isEqualTo("INSERT INTO person (id, name, tenant_id) VALUES (:p0_0, :p0_1, :p0_2)"
+						+ " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, tenant_id = EXCLUDED.tenant_id");
+	}
+
+	@Test
+	void shouldUpdateRowsByCaseWhen() {
+		OutboundRow first = new OutboundRow()
+				.append(ID, Parameter.from(1L))
+				.append(NAME, Parameter.from("Jcohy"));
+		OutboundRow second = new OutboundRow()
+				.append(ID, Parameter.from(2L))
+				.append(NAME, Parameter.empty(String.class));
+		BulkStatement statement = BulkStatement.update(new DefaultReactiveDataAccessStrategy(MySqlDialect.INSTANCE), TABLE,
+				ID, List.of(NAME), List.of(first, second), Map.of(TENANT_ID, "000000"));
+
+		assertThat(statement.getSql())
+				.isEqualTo("UPDATE person SET name = CASE id WHEN :p0_id THEN :p0_0 WHEN :p1_id THEN :p1_0 END"
+						+ " WHERE id IN (:p0_id, :p1_id) AND tenant_id = :f0");
+		assertThat(statement.getBindings()).containsOnlyKeys("p0_id", "p1_id", "p0_0", "p1_0", "f0");
+		assertThat(statement.getBindings().get("p1_id").getValue()).isEqualTo(2L);
+		assertThat(statement.getBindings().get("p0_0").getValue()).isEqualTo("Jcohy");
+		assertThat(statement.getBindings().get("p1_0").hasValue()).isFalse();
+		assertThat(statement.getBindings().get("f0").getValue()).isEqualTo("000000");
+	}
+
+	@Test
+	void shouldUpdateRowsWithoutFilters() {
+		OutboundRow row = new OutboundRow()
+				.append(ID, Parameter.from(1L))
+				.append(NAME, Parameter.from("Jcohy"))
+				.append(TENANT_ID, Parameter.from("000000"));
+		BulkStatement statement = BulkStatement.update(new DefaultReactiveDataAccessStrategy(MySqlDialect.INSTANCE), TABLE,
+				ID, List.of(NAME, TENANT_ID), List.of(row), Map.of());
+
+		assertThat(statement.getSql())
+				.isEqualTo("UPDATE person SET name = CASE id WHEN :p0_id THEN :p0_0 END,"
+						+ " tenant_id = CASE id WHEN :p0_id THEN :p0_1 END WHERE id IN (:p0_id)");
+	}
+
+	private BulkStatement upsert(R2dbcDialect dialect, SqlIdentifier tenantColumn) {
+		OutboundRow row = new OutboundRow()
+				.append(ID, Parameter.from(1L))
+				.append(NAME, Parameter.from("Jcohy"))
+				.append(TENANT_ID, Parameter.from("000000"));
+		return BulkStatement.upsert(new DefaultReactiveDataAccessStrategy(dialect), dialect, TABLE, ID, tenantColumn,
+				List.of(ID, NAME, TENANT_ID), List.of(row));
+	}
+}
@@ -0,0 +1,38 @@
+package com.yilin.reactive.r2dbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+
+import com.yilin.reactive.r2dbc.domain.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 14:20
+ * @since 2024.0.1
+ */
+class EntityCopierTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldCopyEntity() {
+		RelationalPersistentEntity<Person> entity = (RelationalPersistentEntity<Person>) new R2dbcMappingContext()
+				.getRequiredPersistentEntity(Person.class);
+		Person person = new Person(1L, "Jcohy", 12, 0L, 1, 1, "000001").setParentId(2L);
+
+		Person copy = new EntityCopier<>(entity).copy(person);
+		person.setName("YiLin");
+
+		assertThat(copy).isNotSameAs(person);
+		assertThat(copy.getId()).isEqualTo(1L);
+		assertThat(copy.getName()).isEqualTo("Jcohy");
+		assertThat(copy.getParentId()).isEqualTo(2L);
+		assertThat(copy.getTenantId()).isEqualTo("000001");
+	}
+}
@@ -0,0 +1,55 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.r2dbc.core.binding.BindMarkersFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/4 10:30
+ * @since 2024.0.1
+ */
+class NamedSqlRegistryTests {
+
+	private final BindMarkersFactory markersFactory = BindMarkersFactory.indexed("$", 1);
+
+	@Test
+	void shouldReplaceNamedParametersWithBindMarkers() {
+		NamedSql sql = NamedSql.parse("test",
+				"SELECT name::text, ':skip' FROM person -- :comment\nWHERE id = :id AND age > :age OR id = :id",
+				this.markersFactory);
+
+		assertThat(sql.getSql())
+				.isEqualTo("SELECT name::text, ':skip' FROM person -- :comment\nWHERE id = $1 AND age > $2 OR id = $3");
+		assertThat(sql.getParameters()).containsExactly("id", "age", "id");
+	}
+
+	@Test
+	void shouldSplitNamedSections() {
+		NamedSqlRegistry registry = NamedSqlRegistry.of("person",
+				"-- name: byId\nSELECT * FROM person WHERE id = :id;\n-- name: count\nSELECT COUNT(*) FROM person",
+				this.markersFactory);
+
+		assertThat(registry.getStatements()).containsOnlyKeys("byId", "count");
+		assertThat(registry.get("byId").getSql()).isEqualTo("SELECT * FROM person WHERE id = $1;");
+		assertThat(registry.get("count").getParameters()).isEmpty();
+	}
+
+	@Test
+	void shouldRejectMissingParameter() {
+		NamedSql sql = NamedSql.parse("test", "SELECT * FROM person WHERE id = :id", this.markersFactory);
+
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() -> sql.bind(Map.of()));
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class)
+				.isThrownBy(() -> NamedSqlRegistry.of("test", "SELECT 1", this.markersFactory).get("missing"));
+	}
+}
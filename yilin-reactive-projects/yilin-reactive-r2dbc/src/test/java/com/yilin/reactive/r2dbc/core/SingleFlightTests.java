@@ -0,0 +1,144 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/2/29 10:30
+ * @since 2024.0.1
+ */
+class SingleFlightTests {
+
+	private final SingleFlight singleFlight = new SingleFlight();
+
+	@Test
+	void shouldShareInFlightMono() {
+		AtomicInteger executions = new AtomicInteger();
+		Mono<Integer> source = Mono.delay(Duration.ofMillis(100)).map(tick -> executions.incrementAndGet());
+
+		Flux.merge(this.singleFlight.mono("key", () -> source), this.singleFlight.mono("key", () -> source),
+						this.singleFlight.mono("other", () -> source))
+				.as(StepVerifier::create)
+				.expectNextCount(3)
+				.verifyComplete();
+
+		assertThat(executions).hasValue(2);
+		assertThat(this.singleFlight.size()).isZero();
+	}
+
+	@Test
+	void shouldCopySharedResultPerSubscriber() {
+		AtomicInteger executions = new AtomicInteger();
+		Mono<StringBuilder> source = Mono.delay(Duration.ofMillis(100)).map(tick -> {
+			executions.incrementAndGet();
+			return new StringBuilder("a");
+		});
+
+		Flux.merge(this.singleFlight.mono("key", () -> source, StringBuilder::new),
+						this.singleFlight.mono("key", () -> source, StringBuilder::new))
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(values -> {
+					assertThat(values).hasSize(2);
+					assertThat(values.get(0)).isNotSameAs(values.get(1));
+					values.get(0).append('b');
+					assertThat(values.get(1)).hasToString("a");
+				})
+				.verifyComplete();
+
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	void shouldCopySharedElementsPerSubscriber() {
+		AtomicInteger executions = new AtomicInteger();
+		Flux<StringBuilder> source = Flux.defer(() -> {
+			executions.incrementAndGet();
+			return Flux.just("a", "b").map(StringBuilder::new).delayElements(Duration.ofMillis(30));
+		});
+
+		Flux.merge(this.singleFlight.flux("key", () -> source, StringBuilder::new),
+						this.singleFlight.flux("key", () -> source, StringBuilder::new))
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(values -> {
+					assertThat(values).hasSize(4);
+					assertThat(values).doesNotHaveDuplicates();
+					assertThat(values).extracting(StringBuilder::toString).containsExactlyInAnyOrder("a", "a", "b", "b");
+				})
+				.verifyComplete();
+
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	void shouldNotCacheCompletedMono() {
+		AtomicInteger executions = new AtomicInteger();
+		Mono<Integer> source = Mono.fromSupplier(executions::incrementAndGet);
+
+		this.singleFlight.mono("key", () -> source).as(StepVerifier::create).expectNext(1).verifyComplete();
+		this.singleFlight.mono("key", () -> source).as(StepVerifier::create).expectNext(2).verifyComplete();
+	}
+
+	@Test
+	void shouldReplayInFlightFlux() {
+		AtomicInteger executions = new AtomicInteger();
+		Flux<Integer> source = Flux.defer(() -> {
+			executions.incrementAndGet();
+			return Flux.range(0, 3).delayElements(Duration.ofMillis(30));
+		});
+
+		Flux.merge(this.singleFlight.flux("key", () -> source),
+						Mono.delay(Duration.ofMillis(40)).thenMany(this.singleFlight.flux("key", () -> source)))
+				.as(StepVerifier::create)
+				.expectNextCount(6)
+				.verifyComplete();
+
+		assertThat(executions).hasValue(1);
+	}
+
+	@Test
+	void shouldExecuteSeparatelyBeyondMaxReplay() {
+		SingleFlight singleFlight = new SingleFlight(1);
+		AtomicInteger executions = new AtomicInteger();
+		Flux<Integer> source = Flux.defer(() -> {
+			executions.incrementAndGet();
+			return Flux.range(0, 3).delayElements(Duration.ofMillis(30));
+		});
+
+		Flux.merge(singleFlight.flux("key", () -> source),
+						Mono.delay(Duration.ofMillis(70)).thenMany(singleFlight.flux("key", () -> source)))
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(values -> assertThat(values).containsExactlyInAnyOrder(0, 0, 1, 1, 2, 2))
+				.verifyComplete();
+
+		assertThat(executions).hasValue(2);
+	}
+
+	@Test
+	void shouldNotShareFluxWithoutReplay() {
+		SingleFlight singleFlight = new SingleFlight(0);
+		AtomicInteger executions = new AtomicInteger();
+		Flux<Integer> source = Flux.defer(() -> Flux.just(executions.incrementAndGet()).delayElements(Duration.ofMillis(30)));
+
+		Flux.merge(singleFlight.flux("key", () -> source), singleFlight.flux("key", () -> source))
+				.as(StepVerifier::create)
+				.expectNextCount(2)
+				.verifyComplete();
+
+		assertThat(executions).hasValue(2);
+		assertThat(singleFlight.size()).isZero();
+	}
+}
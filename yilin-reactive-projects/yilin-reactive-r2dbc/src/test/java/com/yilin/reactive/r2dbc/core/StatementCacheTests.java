@@ -0,0 +1,146 @@
+package com.yilin.reactive.r2dbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.core.DefaultReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.ReactiveDataAccessStrategy;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/15 17:00
+ * @since 2024.0.1
+ */
+class StatementCacheTests {
+
+	private final ReactiveDataAccessStrategy strategy = new DefaultReactiveDataAccessStrategy(H2Dialect.INSTANCE);
+
+	private final RelationalPersistentEntity<?> entity = new R2dbcMappingContext().getRequiredPersistentEntity(Sample.class);
+
+	@Test
+	void shouldEvictLeastRecentlyUsed() {
+		StatementCache cache = new StatementCache(2);
+		get(cache, "a", null);
+		get(cache, "b", null);
+		get(cache, "a", null);
+		get(cache, "c", null);
+
+		assertThat(cache.size()).isEqualTo(2);
+		get(cache, "a", null);
+		assertThat(cache.getHitCount()).isEqualTo(2);
+		get(cache, "b", null);
+		assertThat(cache.getMissCount()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldCountUncacheableAsBypass() {
+		StatementCache cache = new StatementCache(10);
+		get(cache, "a", "value");
+		get(cache, "a", "value");
+
+		assertThat(cache.getHitCount()).isZero();
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getBypassCount()).isEqualTo(1);
+		assertThat(cache.getHitRate()).isZero();
+	}
+
+	@Test
+	void shouldConvertBindValuesByPropertyType() {
+		StatementCache cache = new StatementCache(10);
+		bind(get(cache, Criteria.where("id").is(1L)));
+		List<Object> rendered = bind(get(cache, Criteria.where("id").in("2", "3").or("name").is("a")));
+		List<Object> cached = bind(get(cache, Criteria.where("id").in("2", "3").or("name").is("a")));
+
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(rendered).containsExactly(2L, 3L, "a");
+		assertThat(cached).isEqualTo(rendered);
+		assertThat(bind(get(cache, Criteria.where("id").is("4")))).containsExactly(4L);
+		assertThat(cache.getHitCount()).isEqualTo(2);
+	}
+
+	/**
+	 * 结构为 {@code id = ?} 或 {@code id IN (?, ?) OR name = ?} 的查询, 以 {@link StatementMapper} 渲染.
+	 */
+	private PreparedOperation<?> get(StatementCache cache, Criteria criteria) {
+		String key = StatementCache.shapeOf(criteria);
+		return cache.get(key, criteria, this.strategy, this.entity, () -> {
+			StatementMapper mapper = this.strategy.getStatementMapper().forType(Sample.class);
+			return mapper.getMappedObject(mapper.createSelect("sample").withProjection("*").withCriteria(criteria));
+		});
+	}
+
+	private static List<Object> bind(PreparedOperation<?> operation) {
+		List<Object> values = new ArrayList<>();
+		operation.bindTo(new BindTarget() {
+
+			@Override
+			public void bind(String identifier, Object value) {
+				values.add(value);
+			}
+
+			@Override
+			public void bind(int index, Object value) {
+				values.add(value);
+			}
+
+			@Override
+			public void bindNull(String identifier, Class<?> type) {
+				values.add(null);
+			}
+
+			@Override
+			public void bindNull(int index, Class<?> type) {
+				values.add(null);
+			}
+		});
+		return values;
+	}
+
+	/**
+	 * 语句绑定 boundValue 而条件为空, 绑定值不为空时语句不能缓存.
+	 */
+	private PreparedOperation<?> get(StatementCache cache, String key, String boundValue) {
+		return cache.get(key, null, this.strategy, null, () -> new PreparedOperation<String>() {
+
+			@Override
+			public String getSource() {
+				return key;
+			}
+
+			@Override
+			public void bindTo(BindTarget target) {
+				if (boundValue != null) {
+					target.bind(0, boundValue);
+				}
+			}
+
+			@Override
+			public String toQuery() {
+				return "SELECT * FROM " + key;
+			}
+		});
+	}
+
+	static class Sample {
+
+		@Id
+		Long id;
+
+		String name;
+	}
+}
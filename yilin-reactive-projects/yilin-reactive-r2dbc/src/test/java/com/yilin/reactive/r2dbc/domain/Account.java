@@ -0,0 +1,67 @@
+package com.yilin.reactive.r2dbc.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+
+/**
+ * Copyright: Copyright (c) 2024 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description: 带 {@link Version} 字段的实体.
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/4/2 10:12
+ * @since 2024.0.1
+ */
+public class Account {
+
+	@Id
+	Long id;
+
+	String name;
+
+	@Version
+	Long version;
+
+	public Account() {
+	}
+
+	public Account(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Account setId(Long id) {
+		this.id = id;
+		return this;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Account setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public Account setVersion(Long version) {
+		this.version = version;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "Account{" +
+				"id=" + id +
+				", name='" + name + '\'' +
+				", version=" + version +
+				'}';
+	}
+}
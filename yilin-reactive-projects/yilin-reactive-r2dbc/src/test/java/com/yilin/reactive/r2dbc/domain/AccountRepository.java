@@ -0,0 +1,15 @@
+package com.yilin.reactive.r2dbc.domain;
+
+import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepository;
+
+/**
+ * Copyright: Copyright (c) 2024 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/4/2 10:15
+ * @since 2024.0.1
+ */
+public interface AccountRepository extends YiLinR2dbcRepository<Account, Long> {
+
+}
@@ -4,6 +4,9 @@ import java.util.Objects;
 
 import org.springframework.data.annotation.Id;
 
+import com.yilin.reactive.persistent.annotations.LogicDelete;
+import com.yilin.reactive.persistent.annotations.ParentId;
+import com.yilin.reactive.persistent.annotations.Status;
 import com.yilin.reactive.persistent.annotations.TenantId;
 import com.yilin.reactive.persistent.enums.DeleteStatus;
 import com.yilin.reactive.persistent.enums.ServiceStatus;
@@ -27,12 +30,18 @@ public class Person {
 
 	Long version;
 
+	@LogicDelete
 	Integer deleted;
 
+	@Status
 	Integer status;
 
 	@TenantId
 	String tenantId;
+
+	@ParentId
+	Long parentId;
+
 	public Person() {
 	}
 
@@ -43,6 +52,7 @@ public class Person {
 		this.version = version;
 		this.deleted = deleted;
 		this.status = status;
+		this.tenantId = tenantId;
 	}
 
 	public Person(Long id, String name, Integer age, Long version, Integer deleted, Integer status) {
@@ -115,6 +125,15 @@ public class Person {
 		return Objects.equals(id, person.id) && Objects.equals(name, person.name) && Objects.equals(age, person.age) && Objects.equals(version, person.version) && Objects.equals(deleted, person.deleted) && Objects.equals(status, person.status);
 	}
 
+	public Long getParentId() {
+		return parentId;
+	}
+
+	public Person setParentId(Long parentId) {
+		this.parentId = parentId;
+		return this;
+	}
+
 	public String getTenantId() {
 		return tenantId;
 	}
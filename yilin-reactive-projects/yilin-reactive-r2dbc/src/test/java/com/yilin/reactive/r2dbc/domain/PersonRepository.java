@@ -1,5 +1,11 @@
 package com.yilin.reactive.r2dbc.domain;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.yilin.reactive.persistent.annotations.LogicDelete;
+import com.yilin.reactive.persistent.annotations.Status;
+import com.yilin.reactive.persistent.annotations.TenantId;
 import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepository;
 
 /**
@@ -11,4 +17,13 @@ import com.yilin.reactive.r2dbc.repository.YiLinR2dbcRepository;
  * @since 2024.0.1
  */
 public interface PersonRepository extends YiLinR2dbcRepository<Person, Long> {
+
+	@TenantId
+	Flux<Person> findByName(String name);
+
+	@LogicDelete
+	Mono<Long> logicDeleteByName(String name);
+
+	@Status
+	Mono<Long> changeStatusByNameAndAgeGreaterThan(String name, Integer age, Integer status);
 }
@@ -1,6 +1,7 @@
 package com.yilin.reactive.r2dbc.repository;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -11,8 +12,11 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.query.CriteriaDefinition.Comparator;
@@ -20,12 +24,21 @@ import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.r2dbc.core.DatabaseClient;
 
 import com.yilin.reactive.r2dbc.YiLinR2dbcRepositoryIntegrationTestSupport;
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+import com.yilin.reactive.r2dbc.core.EntitySnapshot;
+import com.yilin.reactive.r2dbc.core.HierarchyStatement;
+import com.yilin.reactive.r2dbc.core.StatementCache;
+import com.yilin.reactive.r2dbc.core.TenantContext;
+import com.yilin.reactive.r2dbc.domain.Account;
+import com.yilin.reactive.r2dbc.domain.AccountRepository;
 import com.yilin.reactive.r2dbc.domain.Person;
 import com.yilin.reactive.r2dbc.domain.PersonRepository;
 import com.yilin.reactive.r2dbc.repository.support.YiLinR2dbcRepositoryFactoryBean;
 import com.yilin.reactive.r2dbc.testing.H2TestSupport;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.data.relational.core.query.Criteria.where;
 
 /**
@@ -43,13 +56,20 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 	@Autowired
 	PersonRepository repository;
 
+	@Autowired
+	AccountRepository accountRepository;
+
 	@Autowired
 	private DatabaseClient databaseClient;
 
+	@Autowired
+	private YiLinR2dbcProperties properties;
+
 	@BeforeEach
 	void before() {
 		Hooks.onOperatorDebug();
-		var statement = Arrays.asList("DROP TABLE IF EXISTS person", H2TestSupport.CREATE_TABLE_PERSON);
+		var statement = Arrays.asList("DROP TABLE IF EXISTS person", H2TestSupport.CREATE_TABLE_PERSON,
+				"DROP TABLE IF EXISTS account", H2TestSupport.CREATE_TABLE_ACCOUNT);
 		statement.forEach(it -> {
 			databaseClient.sql(it)
 					.fetch()
@@ -72,6 +92,90 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.verifyComplete();
 	}
 
+	@Test
+	void shouldInsertBatch() {
+
+		repository.insertBatch(insertSomePerson(5, "Jcohy"), 2) //
+				.as(StepVerifier::create) //
+				.expectNext(2L, 2L, 1L) //
+				.verifyComplete();
+
+		repository.count() //
+				.as(StepVerifier::create) //
+				.expectNext(5L) //
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldInitializeVersionOnInsertBatch() {
+		this.accountRepository.insertBatch(Flux.just(new Account(null, "Jcohy"), new Account(null, "YiLin")), 10)
+				.as(StepVerifier::create)
+				.expectNext(2L)
+				.verifyComplete();
+
+		Account account = this.accountRepository.findAll(Sort.by("id")).blockFirst();
+		assertThat(account.getVersion()).isZero();
+
+		this.accountRepository.save(account.setName("Jiac"))
+				.map(Account::getVersion)
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.accountRepository.count()
+				.as(StepVerifier::create)
+				.expectNext(2L)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldRejectUpsertOfVersionedEntities() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> this.accountRepository.upsertAll(Flux.just(new Account(1L, "Jcohy")), 10))
+				.withMessageContaining("@Version");
+	}
+
+	@Test
+	void shouldUpsertAll() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
+		insertPersons(person);
+
+		person.setName("YiLin");
+		Person person2 = new Person(null, "Jiac", 13, 0L, 1, 1);
+
+		repository.upsertAll(Flux.just(person, person2), 10) //
+				.as(StepVerifier::create) //
+				.expectNextCount(1) //
+				.verifyComplete();
+
+		repository.findAll() //
+				.map(Person::getName) //
+				.collectList() //
+				.as(StepVerifier::create) //
+				.consumeNextWith(actual -> assertThat(actual).containsExactlyInAnyOrder("YiLin", "Jiac")) //
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldNotUpsertOtherTenantRow() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
+		insertPersons(person);
+
+		repository.upsertAll(Flux.just(new Person(person.getId(), "YiLin", 20, 0L, 1, 1, null)), 10) //
+				.contextWrite(TenantContext.withTenantId("000001")) //
+				.as(StepVerifier::create) //
+				.expectError(DataIntegrityViolationException.class) //
+				.verify();
+
+		repository.findById(person.getId()) //
+				.as(StepVerifier::create) //
+				.consumeNextWith(actual -> {
+					assertThat(actual.getName()).isEqualTo("Jcohy");
+					assertThat(actual.getTenantId()).isEqualTo("000000");
+				}) //
+				.verifyComplete();
+	}
+
 	@Test
 	void shouldLogicDeleteById() {
 		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
@@ -83,7 +187,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNext(1L)
 				.verifyComplete();
 
-		this.repository.findById(person.getId())
+		this.repository.includeDeleted().findById(person.getId())
 				.as(StepVerifier::create)
 				.assertNext(actual -> {
 					assertThat(actual.getDeleted()).isEqualTo(0);
@@ -102,7 +206,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNext(1L)
 				.verifyComplete();
 
-		this.repository.findById(person.getId())
+		this.repository.includeDeleted().findById(person.getId())
 				.as(StepVerifier::create)
 				.assertNext(actual -> {
 					assertThat(actual.getDeleted()).isEqualTo(0);
@@ -121,7 +225,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNextCount(1)
 				.verifyComplete();
 
-		this.repository.findById(person.getId())
+		this.repository.includeDeleted().findById(person.getId())
 				.as(StepVerifier::create)
 				.assertNext(actual -> {
 					assertThat(actual.getDeleted()).isEqualTo(0);
@@ -141,7 +245,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNextCount(1)
 				.verifyComplete();
 
-		this.repository.findAllById(Arrays.asList(person.getId(), person2.getId()))
+		this.repository.includeDeleted().findAllById(Arrays.asList(person.getId(), person2.getId()))
 				.collectList()
 				.as(StepVerifier::create)
 				.consumeNextWith(actual -> {
@@ -163,7 +267,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNextCount(1)
 				.verifyComplete();
 
-		this.repository.findAllById(Arrays.asList(person.getId(), person2.getId()))
+		this.repository.includeDeleted().findAllById(Arrays.asList(person.getId(), person2.getId()))
 				.collectList()
 				.as(StepVerifier::create)
 				.consumeNextWith(actual -> {
@@ -184,7 +288,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNextCount(1)
 				.verifyComplete();
 
-		this.repository.findAllById(Arrays.asList(person.getId(), person2.getId()))
+		this.repository.includeDeleted().findAllById(Arrays.asList(person.getId(), person2.getId()))
 				.collectList()
 				.as(StepVerifier::create)
 				.consumeNextWith(actual -> {
@@ -194,6 +298,37 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 	}
 
 
+	@Test
+	void shouldLogicDeleteInConcurrentChunks() {
+		YiLinR2dbcProperties.LogicDelete options = this.properties.getLogicDelete();
+		int chunkSize = options.getChunkSize();
+		int concurrency = options.getConcurrency();
+		options.setChunkSize(2).setConcurrency(3);
+		try {
+			List<Long> ids = this.repository.saveAll(insertSomePerson(7, "Jcohy")).map(Person::getId).collectList().block();
+			this.repository.logicDeleteById(ids.get(0)).block();
+
+			this.repository.logicDeleteAllById(ids)
+					.as(StepVerifier::create)
+					.expectNext(6L)
+					.verifyComplete();
+
+			this.repository.count()
+					.as(StepVerifier::create)
+					.expectNext(0L)
+					.verifyComplete();
+
+			this.repository.includeDeleted().findAllById(ids)
+					.map(Person::getDeleted)
+					.as(StepVerifier::create)
+					.expectNext(0, 0, 0, 0, 0, 0, 0)
+					.verifyComplete();
+		}
+		finally {
+			options.setChunkSize(chunkSize).setConcurrency(concurrency);
+		}
+	}
+
 	@Test
 	void shouldLogicDeleteAll() {
 
@@ -204,7 +339,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.expectNextCount(1)
 				.verifyComplete();
 
-		this.repository.findAll()
+		this.repository.includeDeleted().findAll()
 				.collectList()
 				.as(StepVerifier::create)
 				.consumeNextWith(actual -> {
@@ -213,7 +348,337 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 				.verifyComplete();
 	}
 
-	// todo
+	@Test
+	void shouldLogicDeleteWithDerivedQuery() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
+		Person person2 = new Person(null, "YiLin", 13, 0L, 1, 1);
+
+		insertPersons(person, person2);
+
+		this.repository.logicDeleteByName("Jcohy")
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.includeDeleted().findAll()
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(actual -> assertThat(actual).extracting(Person::getName, Person::getDeleted)
+						.containsExactlyInAnyOrder(tuple("Jcohy", 0), tuple("YiLin", 1)))
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldChangeStatusWithDerivedQuery() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
+		Person person2 = new Person(null, "Jcohy", 20, 0L, 1, 1);
+
+		insertPersons(person, person2);
+
+		this.repository.changeStatusByNameAndAgeGreaterThan("Jcohy", 15, 2)
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.findById(person2.getId())
+				.map(Person::getStatus)
+				.as(StepVerifier::create)
+				.expectNext(2)
+				.verifyComplete();
+
+		this.repository.changeStatusByNameAndAgeGreaterThan("Jcohy", 15, 3)
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectNext(0L)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldExcludeLogicDeleted() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1);
+		Person person2 = new Person(null, "YiLin", 13, 0L, 1, 1);
+
+		insertPersons(person, person2);
+
+		this.repository.logicDeleteById(person.getId())
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.findById(person.getId())
+				.as(StepVerifier::create)
+				.verifyComplete();
+
+		this.repository.existsById(person.getId())
+				.as(StepVerifier::create)
+				.expectNext(false)
+				.verifyComplete();
+
+		this.repository.findAll()
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("YiLin")
+				.verifyComplete();
+
+		this.repository.findByQuery(where("name").is("Jcohy").or("name").is("YiLin"))
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("YiLin")
+				.verifyComplete();
+
+		this.repository.count()
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.includeDeleted().count()
+				.as(StepVerifier::create)
+				.expectNext(2L)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldFilterByTenant() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1, "000001");
+		Person person2 = new Person(null, "YiLin", 13, 0L, 1, 1);
+
+		insertPersons(person, person2);
+
+		this.repository.findAll()
+				.map(Person::getName)
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectNext("Jcohy")
+				.verifyComplete();
+
+		this.repository.findAll()
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("YiLin")
+				.verifyComplete();
+
+		this.repository.findByName("Jcohy")
+				.as(StepVerifier::create)
+				.verifyComplete();
+
+		this.repository.findByName("Jcohy")
+				.map(Person::getTenantId)
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectNext("000001")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldPopulateTenantOnSave() {
+		Person person = new Person(null, "Jcohy", 12, 0L, 1, 1, null);
+
+		this.repository.save(person)
+				.map(Person::getTenantId)
+				.contextWrite(TenantContext.withTenantId("000002"))
+				.as(StepVerifier::create)
+				.expectNext("000002")
+				.verifyComplete();
+
+		this.repository.count()
+				.contextWrite(TenantContext.withTenantId("000002"))
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldNotSaveOtherTenantRow() {
+		Person person = this.repository.save(new Person(null, "Jcohy", 12, 0L)).block();
+
+		this.repository.save(new Person(person.getId(), "YiLin", 20, 0L, 1, 1, null))
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectError(OptimisticLockingFailureException.class)
+				.verify();
+
+		this.repository.findById(person.getId())
+				.as(StepVerifier::create)
+				.consumeNextWith(found -> {
+					assertThat(found.getName()).isEqualTo("Jcohy");
+					assertThat(found.getAge()).isEqualTo(12);
+					assertThat(found.getTenantId()).isEqualTo("000000");
+				})
+				.verifyComplete();
+
+		this.repository.save(person.setName("YiLin"))
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("YiLin")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldUpdateSelective() {
+		Person person = this.repository.save(new Person(null, "Jcohy", 12, 1L)).block();
+
+		this.repository.updateSelective(new Person().setId(person.getId()).setAge(20))
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		Person found = this.repository.findById(person.getId()).block();
+		assertThat(found.getName()).isEqualTo("Jcohy");
+		assertThat(found.getAge()).isEqualTo(20);
+
+		EntitySnapshot<Person> snapshot = this.repository.snapshot(found);
+		assertThat(this.repository.updateSelective(found, snapshot).block()).isZero();
+
+		this.repository.updateSelective(found.setName("Jiac"), snapshot)
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.findById(person.getId())
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("Jiac")
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldNotUpdateSelectiveLogicDeleted() {
+		Person person = this.repository.save(new Person(null, "Jcohy", 12, 1L)).block();
+		this.repository.logicDeleteById(person.getId()).block();
+
+		this.repository.updateSelective(new Person().setId(person.getId()).setAge(20))
+				.as(StepVerifier::create)
+				.expectNext(0L)
+				.verifyComplete();
+
+		this.repository.includeDeleted().updateSelective(new Person().setId(person.getId()).setAge(30))
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		this.repository.includeDeleted().findById(person.getId())
+				.map(Person::getAge)
+				.as(StepVerifier::create)
+				.expectNext(30)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldUpdateBatch() {
+		assertUpdateBatch();
+	}
+
+	@Test
+	void shouldUpdateBatchWithCaseWhen() {
+		YiLinR2dbcProperties.UpdateBatch options = this.properties.getUpdateBatch();
+		YiLinR2dbcProperties.UpdateBatch.Mode mode = options.getMode();
+		options.setMode(YiLinR2dbcProperties.UpdateBatch.Mode.CASE_WHEN);
+		try {
+			assertUpdateBatch();
+		}
+		finally {
+			options.setMode(mode);
+		}
+	}
+
+	@Test
+	void shouldNotUpdateBatchLogicDeleted() {
+		List<Person> persons = this.repository.saveAll(insertSomePerson(3, "Jcohy")).collectList().block();
+		this.repository.logicDeleteById(persons.get(0).getId()).block();
+		persons.forEach(person -> person.setAge(100));
+
+		this.repository.updateBatch(persons, 10)
+				.as(StepVerifier::create)
+				.expectNext(2L)
+				.verifyComplete();
+
+		this.repository.includeDeleted().findById(persons.get(0).getId())
+				.map(Person::getAge)
+				.as(StepVerifier::create)
+				.expectNext(0)
+				.verifyComplete();
+
+		this.repository.includeDeleted().updateBatch(persons.subList(0, 1), 10)
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+	}
+
+	private void assertUpdateBatch() {
+		List<Person> persons = repository.saveAll(insertSomePerson(5, "Jcohy")).collectList().block();
+
+		assertThat(persons).hasSize(5);
+		persons.forEach(person -> person.setAge(person.getAge() * 10).setName(person.getName() + "_updated"));
+		persons.get(4).setName(null);
+
+		this.repository.updateBatch(persons, 2)
+				.as(StepVerifier::create)
+				.expectNext(2L, 2L, 1L)
+				.verifyComplete();
+
+		this.repository.findAll(Sort.by("id"))
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(updated -> assertThat(updated).extracting(Person::getName, Person::getAge)
+						.containsExactly(tuple("Jcohy0_updated", 0), tuple("Jcohy1_updated", 10), tuple("Jcohy2_updated", 20),
+								tuple("Jcohy3_updated", 30), tuple(null, 40)))
+				.verifyComplete();
+
+		this.repository.updateBatch(persons, 10)
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectNext(0L)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldFindDescendantsAndAncestors() {
+		Person root = this.repository.save(new Person(null, "root", 1, 1L)).block();
+		Person child = this.repository.save(new Person(null, "child", 1, 1L).setParentId(root.getId())).block();
+		Person grandchild = this.repository.save(new Person(null, "grandchild", 1, 1L).setParentId(child.getId())).block();
+		this.repository.save(new Person(null, "other", 1, 1L)).block();
+
+		this.repository.findDescendants(root.getId(), 10)
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("child", "grandchild")
+				.verifyComplete();
+
+		this.repository.findDescendants(root.getId(), 1)
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("child")
+				.verifyComplete();
+
+		this.repository.findAncestors(grandchild.getId())
+				.map(Person::getName)
+				.as(StepVerifier::create)
+				.expectNext("child", "root")
+				.verifyComplete();
+
+		this.repository.logicDeleteById(child.getId()).block();
+
+		this.repository.findDescendants(root.getId(), 10)
+				.as(StepVerifier::create)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldBoundDescendantsDepthOnCycle() {
+		Person first = this.repository.save(new Person(null, "first", 1, 1L)).block();
+		Person second = this.repository.save(new Person(null, "second", 1, 1L).setParentId(first.getId())).block();
+		this.repository.save(first.setParentId(second.getId())).block();
+
+		this.repository.findDescendants(first.getId(), HierarchyStatement.MAX_DEPTH)
+				.count()
+				.as(StepVerifier::create)
+				.expectNext((long) HierarchyStatement.MAX_DEPTH)
+				.verifyComplete();
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> this.repository.findDescendants(first.getId(), HierarchyStatement.MAX_DEPTH + 1));
+	}
+
 	@Test
 	void shouldPageByQuery() {
 
@@ -231,13 +696,15 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 		this.repository.pageByQuery(Criteria.where("name").like("J%"), PageRequest.of(0,10))
 				.as(StepVerifier::create)
 				.consumeNextWith(page -> {
-					assertThat(page.getTotalElements()).isEqualTo(10);
+					assertThat(page.getContent()).hasSize(10);
+					assertThat(page.getTotalElements()).isEqualTo(15);
 				})
 				.verifyComplete();
 
 		this.repository.pageByQuery(Criteria.where("name").like("Jcohy%"), PageRequest.of(0,10))
 				.as(StepVerifier::create)
 				.consumeNextWith(page -> {
+					assertThat(page.getContent()).hasSize(5);
 					assertThat(page.getTotalElements()).isEqualTo(5);
 				})
 				.verifyComplete();
@@ -245,15 +712,240 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 		this.repository.pageByQuery(Criteria.where("name").like("Jcohy%"), PageRequest.of(0,3))
 				.as(StepVerifier::create)
 				.consumeNextWith(page -> {
-					assertThat(page.getTotalElements()).isEqualTo(3);
+					assertThat(page.getContent()).hasSize(3);
+					assertThat(page.getTotalElements()).isEqualTo(5);
+					assertThat(page.getTotalPages()).isEqualTo(2);
 				})
 				.verifyComplete();
 	}
 
+	@Test
+	void shouldFindByQueryWithProjection() {
+
+		repository.saveAll(insertSomePerson(5, "Jcohy")) //
+				.as(StepVerifier::create) //
+				.expectNextCount(5) //
+				.verifyComplete();
+
+		this.repository.findByQuery(where("age").lessThan(2), NameOnly.class)
+				.map(NameOnly::getName)
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(names -> assertThat(names).containsExactlyInAnyOrder("Jcohy0", "Jcohy1"))
+				.verifyComplete();
+
+		this.repository.pageByQuery(where("name").like("Jcohy%"), PageRequest.of(0, 2, Sort.by("age")), NameAndAge.class)
+				.as(StepVerifier::create)
+				.consumeNextWith(page -> {
+					assertThat(page.getContent()).containsExactly(new NameAndAge("Jcohy0", 0), new NameAndAge("Jcohy1", 1));
+					assertThat(page.getTotalElements()).isEqualTo(5);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldReuseStatementTemplate() {
+
+		repository.saveAll(insertSomePerson(5, "Jcohy")) //
+				.as(StepVerifier::create) //
+				.expectNextCount(5) //
+				.verifyComplete();
+
+		StatementCache cache = this.repository.getStatementCache().orElseThrow();
+		cache.clear();
+		long hits = cache.getHitCount();
+
+		this.repository.findByQuery(where("name").is("Jcohy1"))
+				.as(StepVerifier::create)
+				.consumeNextWith(person -> assertThat(person.getName()).isEqualTo("Jcohy1"))
+				.verifyComplete();
+
+		this.repository.findByQuery(where("name").is("Jcohy3"))
+				.as(StepVerifier::create)
+				.consumeNextWith(person -> assertThat(person.getName()).isEqualTo("Jcohy3"))
+				.verifyComplete();
+
+		this.repository.countByQuery(where("age").greaterThan(1))
+				.as(StepVerifier::create)
+				.expectNext(3L)
+				.verifyComplete();
+
+		this.repository.countByQuery(where("age").greaterThan(3))
+				.as(StepVerifier::create)
+				.expectNext(1L)
+				.verifyComplete();
+
+		assertThat(cache.getHitCount() - hits).isEqualTo(2);
+	}
+
+	@Test
+	void shouldStreamByQuery() {
+
+		repository.saveAll(insertSomePerson(20, "Jcohy")) //
+				.as(StepVerifier::create) //
+				.expectNextCount(20) //
+				.verifyComplete();
+
+		StepVerifier.create(this.repository.streamByQuery(where("age").greaterThanOrEquals(5), 4), 0)
+				.thenRequest(3)
+				.expectNextCount(3)
+				.thenRequest(Long.MAX_VALUE)
+				.expectNextCount(12)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldFindByIdBatched() {
+
+		List<Person> persons = repository.saveAll(insertSomePerson(5, "Jcohy")).collectList().block();
+
+		assertThat(persons).hasSize(5);
+		Flux.fromIterable(persons)
+				.flatMap(person -> this.repository.findByIdBatched(person.getId()))
+				.map(Person::getName)
+				.collectList()
+				.as(StepVerifier::create)
+				.consumeNextWith(names -> assertThat(names)
+						.containsExactlyInAnyOrder("Jcohy0", "Jcohy1", "Jcohy2", "Jcohy3", "Jcohy4"))
+				.verifyComplete();
+
+		this.repository.findByIdBatched(Long.MAX_VALUE)
+				.as(StepVerifier::create)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldReuseIncludeDeletedView() {
+
+		assertThat(this.repository.includeDeleted()).isSameAs(this.repository.includeDeleted());
+	}
+
+	@Test
+	void shouldFindAllByIdOrdered() {
+
+		List<Person> persons = repository.saveAll(insertSomePerson(5, "Jcohy")).collectList().block();
+
+		assertThat(persons).hasSize(5);
+		List<Long> ids = List.of(persons.get(4).getId(), Long.MAX_VALUE, persons.get(1).getId(), persons.get(3).getId(),
+				persons.get(4).getId(), persons.get(0).getId());
+
+		this.repository.findAllByIdOrdered(ids, 2, 2)
+				.as(StepVerifier::create)
+				.consumeNextWith(result -> {
+					assertThat(result.getContent()).extracting(Person::getName)
+							.containsExactly("Jcohy4", "Jcohy1", "Jcohy3", "Jcohy4", "Jcohy0");
+					assertThat(result.getMissingIds()).containsExactly(Long.MAX_VALUE);
+					assertThat(result.hasMissing()).isTrue();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldSeekPage() {
+
+		repository.saveAll(insertSomePerson(5, "Jcohy")) //
+				.as(StepVerifier::create) //
+				.expectNextCount(5) //
+				.verifyComplete();
+
+		SeekPage<Person> first = this.repository.seekPage(Criteria.empty(), Sort.by(Sort.Order.desc("age")), null, 3).block();
+
+		assertThat(first).isNotNull();
+		assertThat(first.getContent()).extracting(Person::getAge).containsExactly(4, 3, 2);
+		assertThat(first.hasNext()).isTrue();
+
+		this.repository.seekPage(Criteria.empty(), Sort.by(Sort.Order.desc("age")), first.getNextCursor(), 3)
+				.as(StepVerifier::create)
+				.consumeNextWith(page -> {
+					assertThat(page.getContent()).extracting(Person::getAge).containsExactly(1, 0);
+					assertThat(page.hasNext()).isFalse();
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldExistsByQuery() {
+
+		insertPersons(new Person(null, "Jcohy", 12, 0L), new Person(null, "Deleted", 13, 0L, 0, 1),
+				new Person(null, "Other", 14, 0L, 1, 1, "000001"));
+
+		this.repository.existsByQuery(where("name").is("Jcohy"))
+				.as(StepVerifier::create)
+				.expectNext(true)
+				.verifyComplete();
+
+		this.repository.existsByQuery(where("name").is("Deleted"))
+				.as(StepVerifier::create)
+				.expectNext(false)
+				.verifyComplete();
+
+		this.repository.includeDeleted().existsByQuery(where("name").is("Deleted"))
+				.as(StepVerifier::create)
+				.expectNext(true)
+				.verifyComplete();
+
+		this.repository.existsByQuery(where("name").is("Other"))
+				.as(StepVerifier::create)
+				.expectNext(false)
+				.verifyComplete();
+
+		this.repository.existsByQuery(where("name").is("Other"))
+				.contextWrite(TenantContext.withTenantId("000001"))
+				.as(StepVerifier::create)
+				.expectNext(true)
+				.verifyComplete();
+	}
+
+	@Test
+	void shouldAggregate() {
+
+		insertPersons(new Person(null, "Jcohy0", 0, 0L), new Person(null, "Jcohy1", 1, 0L),
+				new Person(null, "Jcohy2", 2, 0L), new Person(null, "YiLin", 30, 0L, 1, 0),
+				new Person(null, "Deleted", 50, 0L, 0, 0));
+
+		this.repository.aggregate(where("age").lessThan(40)).groupBy("status").count().max("age").sum("age", "total_age")
+				.all()
+				.collectSortList((left, right) -> ((Number) left.get("status")).intValue() - ((Number) right.get("status")).intValue())
+				.as(StepVerifier::create)
+				.consumeNextWith(rows -> {
+					assertThat(rows).hasSize(2);
+					assertThat(rows.get(0)).containsOnlyKeys("status", "count", "max_age", "total_age");
+					assertThat(rows).extracting(row -> ((Number) row.get("count")).longValue()).containsExactly(1L, 3L);
+					assertThat(rows).extracting(row -> ((Number) row.get("max_age")).intValue()).containsExactly(30, 2);
+					assertThat(rows).extracting(row -> ((Number) row.get("total_age")).intValue()).containsExactly(30, 3);
+				})
+				.verifyComplete();
+
+		this.repository.aggregate(Criteria.empty()).groupBy("status").count().max("age")
+				.as(StatusSummary.class)
+				.collectSortList((left, right) -> left.status() - right.status())
+				.as(StepVerifier::create)
+				.expectNext(List.of(new StatusSummary(0, 1L, 30), new StatusSummary(1, 3L, 2)))
+				.verifyComplete();
+
+		this.repository.includeDeleted().aggregate(Criteria.empty()).count()
+				.all()
+				.map(row -> ((Number) row.get("count")).longValue())
+				.as(StepVerifier::create)
+				.expectNext(5L)
+				.verifyComplete();
+	}
 
 	Flux<Person> insertSomePerson(int count,String name) {
 		return Flux.fromStream(IntStream.range(0, count).mapToObj(value -> new Person(null, name + value, value, 1L)));
 	}
+
+	interface NameOnly {
+
+		String getName();
+	}
+
+	record NameAndAge(String name, Integer age) {
+	}
+
+	record StatusSummary(Integer status, Long count, Integer maxAge) {
+	}
+
 //	@Test
 //	void shouldChangeStatusWithId() {
 //
@@ -266,7 +958,7 @@ public abstract class AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTest
 //				.expectNextCount(1)
 //				.verifyComplete();
 //
-//		this.repository.findById(person.getId())
+//		this.repository.includeDeleted().findById(person.getId())
 //				.as(StepVerifier::create)
 //				.assertNext(actual -> {
 //					assertThat(actual.getStatus()).isEqualTo(2);
@@ -2,9 +2,11 @@ package com.yilin.reactive.r2dbc.repository;
 
 import io.r2dbc.spi.ConnectionFactory;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
 import com.yilin.reactive.r2dbc.testing.H2TestSupport;
 
 /**
@@ -18,6 +20,7 @@ import com.yilin.reactive.r2dbc.testing.H2TestSupport;
 public class H2YiLinYiLinR2DbcRepositoryRepositoryIntegrationTests extends AbstractYiLinYiLinR2DbcRepositoryRepositoryIntegrationTests {
 
 	@Configuration
+	@EnableConfigurationProperties(YiLinR2dbcProperties.class)
 	static class IntegrationTestConfiguration extends AbstractR2dbcConfiguration {
 		@Override
 		public ConnectionFactory connectionFactory() {
@@ -0,0 +1,57 @@
+package com.yilin.reactive.r2dbc.repository.support;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import com.yilin.reactive.r2dbc.domain.Person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/4/2 15:00
+ * @since 2024.0.1
+ */
+class MicrometerChunkRecorderTests {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final MicrometerChunkRecorder recorder = new MicrometerChunkRecorder(this.registry);
+
+	@Test
+	void shouldRecordLatencyAndRowsPerChunk() {
+		this.recorder.record(Person.class, "logicDelete", 2, Duration.ofMillis(10));
+		this.recorder.record(Person.class, "logicDelete", 1, Duration.ofMillis(30));
+
+		Timer latency = this.registry.get("yilin.r2dbc.repository.chunks")
+				.tags("entity", "Person", "operation", "logicDelete")
+				.timer();
+		DistributionSummary rows = this.registry.get("yilin.r2dbc.repository.chunk.rows")
+				.tags("entity", "Person", "operation", "logicDelete")
+				.summary();
+		assertThat(latency.count()).isEqualTo(2);
+		assertThat(latency.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(40);
+		assertThat(rows.count()).isEqualTo(2);
+		assertThat(rows.totalAmount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldTagOperationsSeparately() {
+		this.recorder.record(Person.class, "logicDelete", 2, Duration.ofMillis(10));
+		this.recorder.record(Person.class, "archive", 5, Duration.ofMillis(10));
+
+		assertThat(this.registry.get("yilin.r2dbc.repository.chunk.rows").summaries()).hasSize(2);
+		assertThat(this.registry.get("yilin.r2dbc.repository.chunk.rows").tag("operation", "archive").summary()
+				.totalAmount()).isEqualTo(5);
+	}
+}
@@ -0,0 +1,125 @@
+package com.yilin.reactive.r2dbc.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.yilin.reactive.r2dbc.config.YiLinR2dbcProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Copyright: Copyright (c) 2023 <a href="https://www.jcohy.com" target="_blank">jcohy.com</a>
+ *
+ * <p> Description:
+ *
+ * @author jcohy
+ * @version 2024.0.1 2024/3/20 11:30
+ * @since 2024.0.1
+ */
+class RepositoryMetricsPostProcessorTests {
+
+	private static final String INVOCATIONS = "yilin.r2dbc.repository.invocations";
+
+	private static final String ROWS = "yilin.r2dbc.repository.rows";
+
+	private MeterRegistry registry;
+
+	private SampleRepository repository;
+
+	@BeforeEach
+	void before() {
+		this.registry = new SimpleMeterRegistry();
+		RepositoryMetricsPostProcessor processor = new RepositoryMetricsPostProcessor(
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), new YiLinR2dbcProperties.Metrics());
+		ProxyFactory factory = new ProxyFactory(new DefaultSampleRepository());
+		factory.addInterface(SampleRepository.class);
+		factory.addAdvice(processor.getInterceptor(this.registry, "SampleRepository"));
+		this.repository = (SampleRepository) factory.getProxy();
+	}
+
+	@Test
+	void shouldTagOverloadsBySignature() {
+		this.repository.find("a").as(StepVerifier::create).expectNextCount(1).verifyComplete();
+		this.repository.find("a", 3).as(StepVerifier::create).expectNextCount(3).verifyComplete();
+		this.repository.find("a", 2).as(StepVerifier::create).expectNextCount(2).verifyComplete();
+
+		Timer single = this.registry.get(INVOCATIONS)
+				.tags("repository", "SampleRepository", "method", "find(String)", "outcome", "SUCCESS", "exception", "none")
+				.timer();
+		Timer limited = this.registry.get(INVOCATIONS)
+				.tags("repository", "SampleRepository", "method", "find(String,int)", "outcome", "SUCCESS", "exception", "none")
+				.timer();
+		assertThat(single.count()).isEqualTo(1);
+		assertThat(limited.count()).isEqualTo(2);
+
+		DistributionSummary singleRows = this.registry.get(ROWS).tags("method", "find(String)").summary();
+		DistributionSummary limitedRows = this.registry.get(ROWS).tags("method", "find(String,int)").summary();
+		assertThat(singleRows.count()).isEqualTo(1);
+		assertThat(singleRows.totalAmount()).isEqualTo(1);
+		assertThat(limitedRows.count()).isEqualTo(2);
+		assertThat(limitedRows.totalAmount()).isEqualTo(5);
+		assertThat(this.registry.find(INVOCATIONS).timers()).hasSize(2);
+	}
+
+	@Test
+	void shouldTagErrorsByOutcomeAndException() {
+		this.repository.fail().as(StepVerifier::create).verifyError(IllegalStateException.class);
+		this.repository.fail().as(StepVerifier::create).verifyError(IllegalStateException.class);
+
+		Timer timer = this.registry.get(INVOCATIONS)
+				.tags("method", "fail()", "outcome", "ERROR", "exception", "IllegalStateException")
+				.timer();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(this.registry.get(ROWS).tags("method", "fail()").summary().totalAmount()).isZero();
+	}
+
+	@Test
+	void shouldNotRecordNonReactiveMethods() {
+		assertThat(this.repository.name()).isEqualTo("sample");
+		assertThat(this.registry.getMeters()).isEmpty();
+	}
+
+	interface SampleRepository {
+
+		Flux<String> find(String name);
+
+		Flux<String> find(String name, int limit);
+
+		Mono<String> fail();
+
+		String name();
+	}
+
+	static class DefaultSampleRepository implements SampleRepository {
+
+		@Override
+		public Flux<String> find(String name) {
+			return Flux.just(name);
+		}
+
+		@Override
+		public Flux<String> find(String name, int limit) {
+			return Flux.just(name).repeat(limit - 1);
+		}
+
+		@Override
+		public Mono<String> fail() {
+			return Mono.error(new IllegalStateException("failed"));
+		}
+
+		@Override
+		public String name() {
+			return "sample";
+		}
+	}
+}
@@ -24,7 +24,15 @@ public class H2TestSupport {
 			+ "    name        varchar(255) NOT NULL,\n" //
 			+ "    deleted     integer NOT NULL,\n" //
 			+ "    status      integer NOT NULL,\n" //
-			+ "    age      integer NULL\n" //
+			+ "    age      integer NULL,\n" //
+			+ "    parent_id   integer NULL,\n" //
+			+ "    tenant_id   varchar(12) NULL\n" //
+			+ ");";
+
+	public static String CREATE_TABLE_ACCOUNT = "CREATE TABLE account (\n" //
+			+ "    id   integer AUTO_INCREMENT CONSTRAINT account_pk PRIMARY KEY,\n" //
+			+ "    name        varchar(255) NOT NULL,\n" //
+			+ "    version     integer NULL\n" //
 			+ ");";
 
 	/**
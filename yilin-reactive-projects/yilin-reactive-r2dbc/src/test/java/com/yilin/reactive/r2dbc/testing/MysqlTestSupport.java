@@ -21,7 +21,9 @@ public class MysqlTestSupport {
 			+ "    name        varchar(255) NOT NULL,\n" //
 			+ "    deleted     integer NOT NULL,\n" //
 			+ "    status      integer NOT NULL,\n" //
-			+ "    age      integer NULL\n" //
+			+ "    age      integer NULL,\n" //
+			+ "    parent_id   integer NULL,\n" //
+			+ "    tenant_id   varchar(12) NULL\n" //
 			+ ");";
 
 	/**